@@ -0,0 +1,109 @@
+package com.gallegos.mic_moviesinfo.cache;
+
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChange;
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChangeFeed;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPage;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of movie infos by id and of year listing pages.
+ * <p>
+ * Entries are evicted by the {@link MovieInfoChangeFeed}, so writes made through any instance are
+ * reflected within milliseconds; writes made through this instance are also evicted right away.
+ * The TTL only bounds staleness should the change stream be unavailable. Evicting a key also drops
+ * a lookup still in flight for it, so a read racing with a write is not cached.
+ */
+@Component
+@Slf4j
+public class MovieInfoCache {
+
+    private record YearPageKey(int year, String after, int limit) {
+    }
+
+    private final boolean enabled;
+    private final AsyncCache<String, MovieInfo> byId;
+    private final AsyncCache<YearPageKey, MovieInfoPage> yearPages;
+
+    public MovieInfoCache(MovieInfoChangeFeed changeFeed,
+                          @Value("${movieinfos.cache.enabled:true}") boolean enabled,
+                          @Value("${movieinfos.cache.maxSize:10000}") long maxSize,
+                          @Value("${movieinfos.cache.ttl:60s}") Duration ttl) {
+        this.enabled = enabled;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+        this.yearPages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+        if (enabled) {
+            changeFeed.changes().subscribe(this::evict);
+        }
+    }
+
+    public Mono<MovieInfo> getById(String id, Function<String, Mono<MovieInfo>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return Mono.fromFuture(() -> byId.get(id, (key, executor) -> loader.apply(key).toFuture()), true);
+    }
+
+    public Mono<MovieInfoPage> getYearPage(int year, String after, int limit, Supplier<Mono<MovieInfoPage>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Mono.fromFuture(() -> yearPages.get(new YearPageKey(year, after, limit),
+                (key, executor) -> loader.get().toFuture()), true);
+    }
+
+    /**
+     * Evicts a written movie info.
+     *
+     * @param year its year, or null when unknown or possibly changed, which drops every year page
+     */
+    public void evict(String id, Integer year) {
+        byId.synchronous().invalidate(id);
+        if (year == null) {
+            yearPages.synchronous().invalidateAll();
+        } else {
+            yearPages.synchronous().asMap().keySet().removeIf(key -> key.year() == year);
+        }
+    }
+
+    /**
+     * Evicts movie infos written in bulk, whose previous years are unknown.
+     */
+    public void evictAll(Collection<String> ids) {
+        byId.synchronous().invalidateAll(ids);
+        yearPages.synchronous().invalidateAll();
+    }
+
+    private void evict(MovieInfoChange change) {
+        switch (change.type()) {
+            case INSERT -> evict(change.movieInfoId(), yearOf(change));
+            case UPDATE -> evict(change.movieInfoId(), change.updatedFields().contains("year") ? null : yearOf(change));
+            case REPLACE, DELETE -> evict(change.movieInfoId(), null);
+            case RESET -> {
+                log.info("MovieInfo changes may have been missed, clearing the cache");
+                byId.synchronous().invalidateAll();
+                yearPages.synchronous().invalidateAll();
+            }
+        }
+    }
+
+    private static Integer yearOf(MovieInfoChange change) {
+        return change.movieInfo() == null ? null : change.movieInfo().getYear();
+    }
+}
@@ -0,0 +1,53 @@
+package com.gallegos.mic_moviesinfo.cache;
+
+import com.gallegos.mic_moviesinfo.domain.FacetCount;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of facet counts, so that dashboards refreshing the same facets run one
+ * aggregation per TTL instead of one per refresh.
+ * <p>
+ * Unlike the {@link MovieInfoCache} it is not evicted on writes: every write changes some facet, so
+ * the counts may be up to {@code movieinfos.facets.cache.ttl} old. Concurrent requests for the
+ * same facet share one aggregation.
+ */
+@Component
+public class MovieInfoFacetCache {
+
+    private record FacetKey(String facet, Object argument) {
+    }
+
+    private final boolean enabled;
+    private final AsyncCache<FacetKey, List<? extends FacetCount<?>>> facets;
+
+    public MovieInfoFacetCache(@Value("${movieinfos.facets.cache.enabled:true}") boolean enabled,
+                               @Value("${movieinfos.facets.cache.ttl:10s}") Duration ttl) {
+        this.enabled = enabled;
+        this.facets = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+    }
+
+    /**
+     * @param argument what the facet is computed with besides its name (a limit, an interval...), or null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<FacetCount<T>> get(String facet, Object argument, Supplier<Flux<FacetCount<T>>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Mono.fromFuture(() -> facets.get(new FacetKey(facet, argument),
+                        (key, executor) -> loader.get().collectList().toFuture()), true)
+                .flatMapIterable(counts -> (List<FacetCount<T>>) counts);
+    }
+}
@@ -0,0 +1,28 @@
+package com.gallegos.mic_moviesinfo.changefeed;
+
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+
+import java.util.Set;
+
+/**
+ * A write to the MovieInfo collection, as seen by the change stream.
+ *
+ * @param movieInfo     the document after the change; null for deletes, and for updates of a
+ *                      document deleted meanwhile
+ * @param updatedFields top-level fields touched by an update; empty for other types
+ */
+public record MovieInfoChange(Type type, String movieInfoId, MovieInfo movieInfo, Set<String> updatedFields) {
+
+    public enum Type {
+        INSERT, UPDATE, REPLACE, DELETE,
+        /**
+         * The stream was interrupted and changes may have been missed; anything derived from the
+         * collection must be rebuilt or dropped.
+         */
+        RESET
+    }
+
+    public static MovieInfoChange reset() {
+        return new MovieInfoChange(Type.RESET, null, null, Set.of());
+    }
+}
@@ -0,0 +1,178 @@
+package com.gallegos.mic_moviesinfo.changefeed;
+
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.FullDocument;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions.ChangeStreamOptionsBuilder;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Tails the MovieInfo change stream and republishes every write, made by any instance, as a
+ * {@link MovieInfoChange}. Change streams need a replica set (a single node is enough).
+ * <p>
+ * When the stream fails it is reopened with backoff, resuming after the last change it delivered,
+ * or at the cluster time it was first opened, so no write is missed in between. Only when Mongo no
+ * longer has that history is a {@link MovieInfoChange.Type#RESET} published. Subscribers that
+ * cannot keep up lose changes instead of slowing the stream down.
+ */
+@Component
+@Slf4j
+public class MovieInfoChangeFeed {
+
+    // ChangeStreamFatalError, ChangeStreamHistoryLost
+    private static final Set<Integer> HISTORY_LOST_CODES = Set.of(280, 286);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Sinks.Many<MovieInfoChange> changes = Sinks.many().multicast().directBestEffort();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private volatile BsonValue resumeToken;
+    private volatile BsonTimestamp openedAt;
+    private Disposable subscription;
+
+    public MovieInfoChangeFeed(ReactiveMongoTemplate mongoTemplate,
+                               @Value("${movieinfos.changeFeed.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    public Flux<MovieInfoChange> changes() {
+        return changes.asFlux();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || subscription != null) {
+            return;
+        }
+        subscription = Flux.defer(this::listen)
+                .doOnNext(event -> {
+                    resumeToken = event.getResumeToken();
+                    if (failing.compareAndSet(true, false)) {
+                        log.info("MovieInfo change stream reopened");
+                    }
+                })
+                .map(MovieInfoChangeFeed::toChange)
+                .doOnNext(change -> {
+                    if (change.type() == MovieInfoChange.Type.RESET) {
+                        // drop, rename, invalidate: the stream ends and cannot be resumed
+                        restartFromNow();
+                    }
+                })
+                .doOnError(this::onStreamError)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .repeatWhen(completed -> completed.delayElements(Duration.ofSeconds(1)))
+                .subscribe(change -> changes.tryEmitNext(change));
+        log.info("Listening to MovieInfo changes");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+    }
+
+    private Flux<ChangeStreamEvent<MovieInfo>> listen() {
+        var token = resumeToken;
+        var startingPoint = token != null
+                ? Mono.<Consumer<ChangeStreamOptionsBuilder>>just(options -> options.resumeAfter(token))
+                : openingTime().<Consumer<ChangeStreamOptionsBuilder>>map(time -> options -> options.resumeAt(time));
+        return startingPoint.flatMapMany(resume -> mongoTemplate.changeStream(MovieInfo.class)
+                .withOptions(options -> resume.accept(options.fullDocumentLookup(FullDocument.UPDATE_LOOKUP)))
+                .watchCollection(MovieInfo.class)
+                .listen());
+    }
+
+    /**
+     * The cluster time of the first opening, kept so that a stream that fails before delivering
+     * anything still resumes from there.
+     */
+    private Mono<BsonTimestamp> openingTime() {
+        var time = openedAt;
+        if (time != null) {
+            return Mono.just(time);
+        }
+        return mongoTemplate.executeCommand("{ hello: 1 }")
+                .mapNotNull(reply -> reply.get("operationTime", BsonTimestamp.class))
+                .switchIfEmpty(Mono.error(new IllegalStateException("Mongo is not a replica set")))
+                .doOnNext(operationTime -> openedAt = operationTime);
+    }
+
+    private void restartFromNow() {
+        resumeToken = null;
+        openedAt = null;
+    }
+
+    private void onStreamError(Throwable ex) {
+        if (isHistoryLost(ex)) {
+            log.warn("MovieInfo change stream history lost, restarting it: {}", ex.getMessage());
+            restartFromNow();
+            changes.tryEmitNext(MovieInfoChange.reset());
+        }
+        if (failing.compareAndSet(false, true)) {
+            log.warn("MovieInfo change stream failed, reopening it with backoff: {}", ex.getMessage());
+        } else {
+            log.debug("MovieInfo change stream still failing: {}", ex.getMessage());
+        }
+    }
+
+    private static boolean isHistoryLost(Throwable ex) {
+        for (var cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && HISTORY_LOST_CODES.contains(mongoException.getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MovieInfoChange toChange(ChangeStreamEvent<MovieInfo> event) {
+        var raw = event.getRaw();
+        var type = switch (event.getOperationType()) {
+            case INSERT -> MovieInfoChange.Type.INSERT;
+            case UPDATE -> MovieInfoChange.Type.UPDATE;
+            case REPLACE -> MovieInfoChange.Type.REPLACE;
+            case DELETE -> MovieInfoChange.Type.DELETE;
+            // drop, rename, invalidate...: the whole collection is affected
+            case null, default -> MovieInfoChange.Type.RESET;
+        };
+        if (type == MovieInfoChange.Type.RESET || raw == null || raw.getDocumentKey() == null) {
+            return MovieInfoChange.reset();
+        }
+        var updatedFields = raw.getUpdateDescription() == null || raw.getUpdateDescription().getUpdatedFields() == null
+                ? Set.<String>of()
+                : raw.getUpdateDescription().getUpdatedFields().keySet().stream()
+                        .map(path -> path.split("\\.", 2)[0])
+                        .collect(Collectors.toUnmodifiableSet());
+        return new MovieInfoChange(type, idOf(raw.getDocumentKey().get("_id")), event.getBody(), updatedFields);
+    }
+
+    private static String idOf(BsonValue id) {
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+}
@@ -0,0 +1,39 @@
+package com.gallegos.mic_moviesinfo.config;
+
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import reactor.core.publisher.Flux;
+
+/**
+ * Creates the indexes declared on the documents ({@code @Indexed}, {@code @CompoundIndex}) once the
+ * context is up. Creating an index that already exists is a no-op, so this is safe on every start.
+ * <p>
+ * The {@code year} index backs {@code findByYear}; it is the prefix of the {@code (year, _id)}
+ * compound index, which also serves the sorted, keyset-paginated year listings. The {@code cast}
+ * and {@code releaseDate} indexes back the facet aggregations.
+ */
+@Configuration
+@Slf4j
+public class MongoIndexConfig {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public MongoIndexConfig(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void createIndexes() {
+        var resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        var indexOperations = mongoTemplate.indexOps(MovieInfo.class);
+        Flux.fromIterable(resolver.resolveIndexFor(MovieInfo.class))
+                .concatMap(indexOperations::createIndex)
+                .doOnNext(index -> log.info("Ensured index {} on MovieInfo", index))
+                .blockLast();
+    }
+}
@@ -1,13 +1,10 @@
 package com.gallegos.mic_moviesinfo.controller;
 
-import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
-
 @RestController
 public class FluxAndMonoController {
 
@@ -22,10 +19,4 @@ public class FluxAndMonoController {
         return Mono.just("Hello world")
                 .log();
     }
-
-    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<Long> stream() {
-        return Flux.interval(Duration.ofSeconds(1))
-                .log();
-    }
 }
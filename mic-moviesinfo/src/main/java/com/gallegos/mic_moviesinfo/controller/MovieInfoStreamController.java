@@ -0,0 +1,69 @@
+package com.gallegos.mic_moviesinfo.controller;
+
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChange;
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChangeFeed;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes catalog changes to any number of SSE subscribers.
+ * <p>
+ * Every subscriber shares the single {@link MovieInfoChangeFeed} upstream and one heartbeat timer.
+ * What a subscriber holds is bounded: its own buffer of {@code movieinfos.stream.bufferSize} events,
+ * from which the oldest are dropped when the subscriber reads slower than the catalog changes, so a
+ * slow client neither slows down the others nor grows the heap. Heartbeat comments keep idle
+ * connections open through proxies and let dead ones be detected.
+ */
+@RestController
+@RequestMapping("/v1")
+@Slf4j
+public class MovieInfoStreamController {
+
+    private final Flux<MovieInfoChange> changes;
+    private final Flux<ServerSentEvent<MovieInfoEvent>> heartbeats;
+    private final int bufferSize;
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public MovieInfoStreamController(MovieInfoChangeFeed changeFeed,
+                                     @Value("${movieinfos.stream.bufferSize:256}") int bufferSize,
+                                     @Value("${movieinfos.stream.heartbeat:15s}") Duration heartbeat) {
+        this.changes = changeFeed.changes();
+        this.heartbeats = Flux.interval(heartbeat, heartbeat)
+                .map(tick -> ServerSentEvent.<MovieInfoEvent>builder().comment("heartbeat").build())
+                .share();
+        this.bufferSize = bufferSize;
+    }
+
+    @GetMapping(value = "/movieinfos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<MovieInfoEvent>> streamMovieInfos() {
+        return Flux.merge(changes.map(MovieInfoStreamController::toEvent), heartbeats)
+                .onBackpressureBuffer(bufferSize,
+                        dropped -> log.debug("Slow subscriber, dropped {}", dropped),
+                        BufferOverflowStrategy.DROP_OLDEST)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    private static ServerSentEvent<MovieInfoEvent> toEvent(MovieInfoChange change) {
+        var type = change.type().name().toLowerCase(Locale.ROOT);
+        return ServerSentEvent.builder(new MovieInfoEvent(type, change.movieInfoId(), change.movieInfo()))
+                .event(type)
+                .build();
+    }
+}
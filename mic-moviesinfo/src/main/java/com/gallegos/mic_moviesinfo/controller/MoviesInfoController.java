@@ -1,26 +1,48 @@
 package com.gallegos.mic_moviesinfo.controller;
 
+import com.gallegos.mic_moviesinfo.domain.FacetCount;
 import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoBulkResult;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPatch;
+import com.gallegos.mic_moviesinfo.domain.ReleaseDateInterval;
+import com.gallegos.mic_moviesinfo.service.MovieInfoBulkService;
 import com.gallegos.mic_moviesinfo.service.MoviesInfoService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/v1")
 @AllArgsConstructor
 @Slf4j
 public class MoviesInfoController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int DEFAULT_FACET_LIMIT = 10;
+    private static final int MAX_FACET_LIMIT = 1000;
+
     @Autowired
     private MoviesInfoService moviesInfoService;
 
+    @Autowired
+    private MovieInfoBulkService movieInfoBulkService;
+
     @PostMapping("/movieinfos")
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<MovieInfo> addMovieInfo(@RequestBody @Valid MovieInfo movieInfo) {
@@ -28,23 +50,109 @@ public class MoviesInfoController {
                 .log();
     }
 
+    /**
+     * Bulk ingest: one {@link MovieInfo} per NDJSON line in, one {@link MovieInfoBulkResult} per line out.
+     * Lines with an id replace the stored movie info, lines without one are inserted.
+     */
+    @PostMapping(value = "/movieinfos/bulk",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieInfoBulkResult> bulkAddMovieInfos(@RequestBody Flux<String> lines) {
+        return movieInfoBulkService.ingest(lines);
+    }
+
+    /**
+     * Lists movie infos by {@code ids}, or page by page (optionally for one {@code year}): at most
+     * {@code limit} items, starting after the {@code after} cursor. When more items follow, the
+     * cursor of the next page is returned in the {@value #NEXT_CURSOR_HEADER} header.
+     * {@code fields} restricts the response to some of the {@link MoviesInfoService#PROJECTABLE_FIELDS}.
+     */
     @GetMapping("/movieinfos")
-    @ResponseStatus(HttpStatus.OK)
-    public Flux<MovieInfo> getAllMovieInfos(@RequestParam(value = "year", required = false) Integer year) {
-        log.info("Getting all movies infos for year {}", year);
-        if (year != null) {
-            return moviesInfoService.getMoviesInfoByYear(year)
+    public Mono<ResponseEntity<List<MovieInfo>>> getAllMovieInfos(@RequestParam(value = "year", required = false) Integer year,
+                                                                  @RequestParam(value = "ids", required = false) List<String> ids,
+                                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                                  @RequestParam(value = "after", required = false) String after,
+                                                                  @RequestParam(value = "fields", required = false) Set<String> fields) {
+        log.info("Getting all movies infos for year {}, ids {}, limit {}, after {} and fields {}", year, ids, limit, after, fields);
+        checkFields(fields);
+        if (ids != null) {
+            return (fields == null ? moviesInfoService.getMoviesInfoByIds(ids) : moviesInfoService.getMoviesInfoByIds(ids, fields))
+                    .collectList()
+                    .map(ResponseEntity.ok()::body)
                     .log();
         }
-        return moviesInfoService.getAllMoviesInfo()
+        var pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        return Mono.defer(() -> fields == null
+                        ? moviesInfoService.getMoviesInfoPage(year, after, pageSize)
+                        : moviesInfoService.getMoviesInfoPage(year, after, pageSize, fields))
+                .onErrorMap(IllegalArgumentException.class,
+                        ex -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + after, ex))
+                .map(page -> {
+                    var response = ResponseEntity.ok();
+                    if (page.nextCursor() != null) {
+                        response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+                    }
+                    return response.body(page.movieInfos());
+                })
                 .log();
     }
 
+    /**
+     * Searches names and cast members: every word of {@code q} must match a word, or the start of
+     * one, of the name or of a cast member. At most {@code limit} results, best first.
+     */
+    @GetMapping("/movieinfos/search")
+    public Flux<MovieInfo> searchMovieInfos(@RequestParam("q") String query,
+                                            @RequestParam(value = "limit", required = false) Integer limit) {
+        var resultSize = limit == null ? DEFAULT_SEARCH_LIMIT : Math.clamp(limit, 1, MAX_SEARCH_LIMIT);
+        return moviesInfoService.searchMoviesInfo(query, resultSize)
+                .log();
+    }
+
+    /**
+     * Number of movie infos per year, in year order.
+     */
+    @GetMapping("/movieinfos/facets/year")
+    public Flux<FacetCount<Integer>> getYearFacet() {
+        return moviesInfoService.getYearFacet();
+    }
+
+    /**
+     * The {@code limit} cast members appearing in the most movie infos, with their counts.
+     */
+    @GetMapping("/movieinfos/facets/cast")
+    public Flux<FacetCount<String>> getCastFacet(@RequestParam(value = "limit", required = false) Integer limit) {
+        var facetSize = limit == null ? DEFAULT_FACET_LIMIT : Math.clamp(limit, 1, MAX_FACET_LIMIT);
+        return moviesInfoService.getCastFacet(facetSize);
+    }
+
+    /**
+     * Histogram of release dates by {@code interval} (year, month or day), in date order.
+     */
+    @GetMapping("/movieinfos/facets/releaseDate")
+    public Flux<FacetCount<String>> getReleaseDateFacet(@RequestParam(value = "interval", defaultValue = "year") String interval) {
+        ReleaseDateInterval releaseDateInterval;
+        try {
+            releaseDateInterval = ReleaseDateInterval.valueOf(interval.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown interval: " + interval, ex);
+        }
+        return moviesInfoService.getReleaseDateFacet(releaseDateInterval);
+    }
+
+    /**
+     * The response carries an ETag hashed from the movie info; a request whose {@code If-None-Match}
+     * matches it gets a 304 and no body.
+     */
     @GetMapping("/movieinfos/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public Mono<ResponseEntity<MovieInfo>> getAllMovieInfosById(@PathVariable String id) {
-        return moviesInfoService.getAllMoviesInfoById(id)
-                .map(ResponseEntity.ok()::body)
+    public Mono<ResponseEntity<MovieInfo>> getAllMovieInfosById(@PathVariable String id,
+                                                                @RequestParam(value = "fields", required = false) Set<String> fields) {
+        checkFields(fields);
+        return (fields == null ? moviesInfoService.getAllMoviesInfoById(id) : moviesInfoService.getAllMoviesInfoById(id, fields))
+                .map(movieInfo -> ResponseEntity.ok()
+                        .eTag(eTag(movieInfo))
+                        .body(movieInfo))
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
                 .log();
     }
@@ -57,10 +165,29 @@ public class MoviesInfoController {
                 .log();
     }
 
+    @PatchMapping("/movieinfos/{id}")
+    public Mono<ResponseEntity<MovieInfo>> patchMovieInfo(@RequestBody @Valid MovieInfoPatch patch, @PathVariable String id) {
+        return moviesInfoService.patchMovieInfo(patch, id)
+                .map(ResponseEntity.ok()::body)
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
+                .log();
+    }
+
     @DeleteMapping("/movieinfos/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> deleteMovieInfo(@PathVariable String id) {
         return moviesInfoService.deleteMovieInfo(id)
                 .log();
     }
+
+    private static String eTag(MovieInfo movieInfo) {
+        return ETags.of(movieInfo.getMovieInfoId(), movieInfo.getName(), movieInfo.getYear(),
+                movieInfo.getCast(), movieInfo.getReleaseDate());
+    }
+
+    private static void checkFields(Set<String> fields) {
+        if (fields != null && !MoviesInfoService.PROJECTABLE_FIELDS.containsAll(fields)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown fields: " + fields);
+        }
+    }
 }
@@ -0,0 +1,7 @@
+package com.gallegos.mic_moviesinfo.domain;
+
+/**
+ * How many movie infos share one value of a facet: a year, a cast member, a release date bucket.
+ */
+public record FacetCount<T>(T value, long count) {
+}
@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -16,12 +18,14 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+@CompoundIndex(name = "year_id", def = "{'year': 1, '_id': 1}")
 public class MovieInfo {
 
     @Id
     private String movieInfoId;
 
     @NotBlank(message = "movieInfo.name must be present")
+    @Indexed
     private String name;
 
     @NotNull
@@ -29,7 +33,9 @@ public class MovieInfo {
     private Integer year;
 
 
+    @Indexed
     private List<@NotBlank(message= "movieInfo.cast must be present") String> cast;
 
+    @Indexed
     private LocalDate releaseDate;
 }
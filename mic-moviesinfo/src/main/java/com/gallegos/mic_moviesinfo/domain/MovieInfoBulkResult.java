@@ -0,0 +1,19 @@
+package com.gallegos.mic_moviesinfo.domain;
+
+/**
+ * Outcome of one line of a bulk NDJSON ingest. {@code line} is 1-based; {@code error} is only set
+ * for rejected or failed lines.
+ */
+public record MovieInfoBulkResult(long line, Status status, String movieInfoId, String error) {
+
+    public enum Status {
+        /** Inserted with a newly generated id. */
+        INSERTED,
+        /** Stored under the id given in the line, replacing any previous version. */
+        UPSERTED,
+        /** Not valid JSON or failed the {@link MovieInfo} constraints; nothing was written. */
+        INVALID,
+        /** Valid, but the write was rejected by Mongo. */
+        FAILED
+    }
+}
@@ -0,0 +1,14 @@
+package com.gallegos.mic_moviesinfo.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A catalog change pushed to {@code /v1/movieinfos/stream} subscribers.
+ *
+ * @param type        insert, update, replace, delete, or reset when changes may have been missed
+ *                    and subscribers should reload what they hold
+ * @param movieInfo   the movie info after the change; absent for deletes and resets
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MovieInfoEvent(String type, String movieInfoId, MovieInfo movieInfo) {
+}
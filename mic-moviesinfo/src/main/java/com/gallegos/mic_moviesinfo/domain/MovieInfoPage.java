@@ -0,0 +1,9 @@
+package com.gallegos.mic_moviesinfo.domain;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last page.
+ */
+public record MovieInfoPage(List<MovieInfo> movieInfos, String nextCursor) {
+}
@@ -0,0 +1,33 @@
+package com.gallegos.mic_moviesinfo.domain;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Partial update of a {@link MovieInfo}. Only the fields present are changed; {@code cast} replaces
+ * the whole cast while {@code addCast} appends to it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoPatch {
+
+    @Pattern(regexp = "(?s).*\\S.*", message = "movieInfo.name must be present")
+    private String name;
+
+    @Positive(message = "movieInfo.year must be a positive value")
+    private Integer year;
+
+    private List<@NotBlank(message = "movieInfo.cast must be present") String> cast;
+
+    private List<@NotBlank(message = "movieInfo.cast must be present") String> addCast;
+
+    private LocalDate releaseDate;
+}
@@ -0,0 +1,24 @@
+package com.gallegos.mic_moviesinfo.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A {@link MovieInfo} read with only some of its fields. The fields that were not read are null
+ * and left out of the JSON, so a projected response only carries what was asked for.
+ */
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovieInfoProjection extends MovieInfo {
+
+    public MovieInfoProjection(String movieInfoId, String name, Integer year, List<String> cast, LocalDate releaseDate) {
+        super(movieInfoId, name, year, cast, releaseDate);
+    }
+}
@@ -0,0 +1,22 @@
+package com.gallegos.mic_moviesinfo.domain;
+
+/**
+ * Width of the buckets of a release date histogram, with the {@code $dateToString} format that
+ * names them.
+ */
+public enum ReleaseDateInterval {
+
+    YEAR("%Y"),
+    MONTH("%Y-%m"),
+    DAY("%Y-%m-%d");
+
+    private final String format;
+
+    ReleaseDateInterval(String format) {
+        this.format = format;
+    }
+
+    public String format() {
+        return format;
+    }
+}
@@ -1,14 +1,23 @@
 package com.gallegos.mic_moviesinfo.repository;
 
 import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface MovieInfoRepository  extends ReactiveMongoRepository<MovieInfo, String> {
+public interface MovieInfoRepository  extends ReactiveMongoRepository<MovieInfo, String>, MovieInfoRepositoryCustom {
 
     Flux<MovieInfo> findByYear(Integer year);
 
+    Flux<MovieInfo> findAllByOrderByMovieInfoIdAsc(Limit limit);
+
+    Flux<MovieInfo> findByMovieInfoIdGreaterThanOrderByMovieInfoIdAsc(String after, Limit limit);
+
+    Flux<MovieInfo> findByYearOrderByYearAscMovieInfoIdAsc(Integer year, Limit limit);
+
+    Flux<MovieInfo> findByYearAndMovieInfoIdGreaterThanOrderByYearAscMovieInfoIdAsc(Integer year, String after, Limit limit);
+
     Mono<MovieInfo> findByName(String name);
 
 }
@@ -0,0 +1,54 @@
+package com.gallegos.mic_moviesinfo.repository;
+
+import com.gallegos.mic_moviesinfo.domain.FacetCount;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoProjection;
+import com.gallegos.mic_moviesinfo.domain.ReleaseDateInterval;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface MovieInfoRepositoryCustom {
+
+    /**
+     * Writes all movie infos in one unordered bulk operation: {@code toInsert} are inserted,
+     * {@code toReplace} replace the document with the same id or are inserted if there is none.
+     * Write errors are indexed over {@code toInsert} followed by {@code toReplace}.
+     */
+    Mono<BulkWriteResult> bulkInsertOrReplace(List<MovieInfo> toInsert, List<MovieInfo> toReplace);
+
+    /**
+     * Applies {@code update} to the movie info with the given id in one atomic findAndModify.
+     *
+     * @return the updated movie info, or empty if there is none with that id
+     */
+    Mono<MovieInfo> updateById(String id, Update update);
+
+    /**
+     * Runs {@code query} reading only the given fields (plus the id) of the matching documents,
+     * as {@link MovieInfoProjection}s whose other properties are null.
+     */
+    Flux<MovieInfo> findProjected(Query query, Collection<String> fields);
+
+    /**
+     * Counts movie infos per year, in year order.
+     */
+    Flux<FacetCount<Integer>> countByYear();
+
+    /**
+     * Counts movie infos per cast member, keeping the {@code limit} most frequent ones, most
+     * frequent first.
+     */
+    Flux<FacetCount<String>> countByCast(int limit);
+
+    /**
+     * Counts movie infos per release date bucket, in date order. Buckets are named after their
+     * {@link ReleaseDateInterval#format()}; movie infos without a release date are left out.
+     */
+    Flux<FacetCount<String>> countByReleaseDate(ReleaseDateInterval interval);
+}
@@ -0,0 +1,110 @@
+package com.gallegos.mic_moviesinfo.repository;
+
+import com.gallegos.mic_moviesinfo.domain.FacetCount;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoProjection;
+import com.gallegos.mic_moviesinfo.domain.ReleaseDateInterval;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+class MovieInfoRepositoryCustomImpl implements MovieInfoRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    MovieInfoRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<BulkWriteResult> bulkInsertOrReplace(List<MovieInfo> toInsert, List<MovieInfo> toReplace) {
+        var bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieInfo.class);
+        if (!toInsert.isEmpty()) {
+            bulkOperations.insert(toInsert);
+        }
+        toReplace.forEach(movieInfo -> bulkOperations.replaceOne(
+                query(where("_id").is(movieInfo.getMovieInfoId())), movieInfo, FindAndReplaceOptions.options().upsert()));
+        return bulkOperations.execute();
+    }
+
+    @Override
+    public Mono<MovieInfo> updateById(String id, Update update) {
+        return mongoTemplate.findAndModify(query(where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), MovieInfo.class);
+    }
+
+    @Override
+    public Flux<MovieInfo> findProjected(Query query, Collection<String> fields) {
+        query.fields().include(fields.toArray(String[]::new));
+        return mongoTemplate.find(query, MovieInfoProjection.class, mongoTemplate.getCollectionName(MovieInfo.class))
+                .cast(MovieInfo.class);
+    }
+
+    /*
+     * The facet pipelines start with a $sort or $match on an indexed field, which Mongo runs as an
+     * index scan, and only pass on the field being counted.
+     */
+
+    @Override
+    public Flux<FacetCount<Integer>> countByYear() {
+        // the $group only needs the year, so the scan of the year index is covered
+        return aggregate(newAggregation(
+                        sort(Sort.Direction.ASC, "year"),
+                        group("year").count().as("count"),
+                        sort(Sort.Direction.ASC, "_id")))
+                .map(document -> new FacetCount<>(document.getInteger("_id"), countOf(document)));
+    }
+
+    @Override
+    public Flux<FacetCount<String>> countByCast(int limit) {
+        return aggregate(newAggregation(
+                        match(where("cast").ne(null)),
+                        project("cast"),
+                        unwind("cast"),
+                        group("cast").count().as("count"),
+                        sort(Sort.by(Sort.Direction.DESC, "count").and(Sort.by(Sort.Direction.ASC, "_id"))),
+                        limit(limit)))
+                .map(document -> new FacetCount<>(document.getString("_id"), countOf(document)));
+    }
+
+    @Override
+    public Flux<FacetCount<String>> countByReleaseDate(ReleaseDateInterval interval) {
+        return aggregate(newAggregation(
+                        match(where("releaseDate").ne(null)),
+                        project().and(DateOperators.DateToString.dateOf("releaseDate").toString(interval.format())).as("bucket"),
+                        group("bucket").count().as("count"),
+                        sort(Sort.Direction.ASC, "_id")))
+                .map(document -> new FacetCount<>(document.getString("_id"), countOf(document)));
+    }
+
+    private Flux<Document> aggregate(Aggregation aggregation) {
+        return mongoTemplate.aggregate(aggregation, MovieInfo.class, Document.class);
+    }
+
+    private static long countOf(Document document) {
+        return document.get("count", Number.class).longValue();
+    }
+}
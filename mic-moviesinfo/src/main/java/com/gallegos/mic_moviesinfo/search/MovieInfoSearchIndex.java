@@ -0,0 +1,433 @@
+package com.gallegos.mic_moviesinfo.search;
+
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChange;
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChangeFeed;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the name and cast of every movie info, for prefix search.
+ * <p>
+ * Text is lower-cased, stripped of accents and split into terms on anything that is not a letter
+ * or a digit. Every query term must match, as a whole term or as a prefix, a term of the name or of
+ * a cast member; matches rank name over cast and whole terms over prefixes. Terms are kept sorted
+ * so a prefix is a range of the dictionary. Candidates come from the postings of the most selective
+ * query term and are checked against the other terms; they are capped at {@value #MAX_CANDIDATES},
+ * taken in rank order (name before cast, whole term before prefix), to bound the latency of very
+ * broad queries at the cost of exhaustive ranking.
+ * <p>
+ * The index is loaded from Mongo at startup and then kept up to date by the {@link MovieInfoChangeFeed},
+ * which reports the writes of every instance, this one included; only when the feed is disabled does
+ * the index follow this instance's writes directly. When the feed reports missed changes the index is
+ * reloaded, at most once every {@code movieinfos.search.reloadInterval}. Updates and deletes leave
+ * stale postings behind, which are skipped, until they outnumber the live documents and the index is
+ * compacted. Like a reload, compaction builds the new index outside the lock and replays the changes
+ * made in the meantime before swapping it in.
+ */
+@Component
+@Slf4j
+public class MovieInfoSearchIndex {
+
+    static final int MAX_CANDIDATES = 2_000;
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int NAME_TERM = 8;
+    private static final int NAME_PREFIX = 4;
+    private static final int CAST_TERM = 2;
+    private static final int CAST_PREFIX = 1;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final MovieInfoRepository movieInfoRepository;
+    private final MovieInfoChangeFeed changeFeed;
+    private final boolean enabled;
+    private final Duration reloadInterval;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private List<MovieInfoChange> changedWhileLoading;
+    private List<MovieInfoChange> changedWhileCompacting;
+    private volatile long lastLoad;
+
+    public MovieInfoSearchIndex(MovieInfoRepository movieInfoRepository,
+                                MovieInfoChangeFeed changeFeed,
+                                @Value("${movieinfos.search.enabled:true}") boolean enabled,
+                                @Value("${movieinfos.search.reloadInterval:5m}") Duration reloadInterval) {
+        this.movieInfoRepository = movieInfoRepository;
+        this.changeFeed = changeFeed;
+        this.enabled = enabled;
+        this.reloadInterval = reloadInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        changeFeed.changes().subscribe(this::apply);
+        load().subscribe();
+    }
+
+    /**
+     * Replaces the whole index with the current content of the collection. Changes applied while
+     * loading are replayed on the new index.
+     */
+    public Mono<Void> load() {
+        return Mono.defer(() -> {
+            lock.writeLock().lock();
+            try {
+                if (changedWhileLoading != null) {
+                    return Mono.empty();
+                }
+                changedWhileLoading = new ArrayList<>();
+                lastLoad = System.nanoTime();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return movieInfoRepository.findAll()
+                    .reduce(new Index(), (loaded, movieInfo) -> {
+                        loaded.add(movieInfo);
+                        return loaded;
+                    })
+                    .doOnNext(loaded -> {
+                        lock.writeLock().lock();
+                        try {
+                            changedWhileLoading.forEach(change -> apply(loaded, change));
+                            index = loaded;
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                        log.info("Search index loaded with {} movie infos", loaded.size());
+                    })
+                    .doOnError(ex -> log.warn("Search index could not be loaded: {}", ex.getMessage()))
+                    .doFinally(signal -> {
+                        lock.writeLock().lock();
+                        try {
+                            changedWhileLoading = null;
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * Indexes a write of this instance, unless the change feed will report it.
+     */
+    public void index(MovieInfo movieInfo) {
+        if (!changeFeed.isEnabled()) {
+            apply(new MovieInfoChange(MovieInfoChange.Type.REPLACE, movieInfo.getMovieInfoId(), movieInfo, Set.of()));
+        }
+    }
+
+    /**
+     * Removes a document deleted by this instance, unless the change feed will report it.
+     */
+    public void remove(String movieInfoId) {
+        if (!changeFeed.isEnabled()) {
+            apply(new MovieInfoChange(MovieInfoChange.Type.DELETE, movieInfoId, null, Set.of()));
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return at most {@code limit} movie infos matching every term of {@code query}, best first
+     */
+    public List<MovieInfo> search(String query, int limit) {
+        var terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(MovieInfoChange change) {
+        if (!enabled) {
+            return;
+        }
+        if (change.type() == MovieInfoChange.Type.RESET) {
+            if (System.nanoTime() - lastLoad > reloadInterval.toNanos()) {
+                load().subscribe();
+            }
+            return;
+        }
+        Index compacting = null;
+        List<MovieInfo> live = null;
+        lock.writeLock().lock();
+        try {
+            apply(index, change);
+            if (changedWhileLoading != null) {
+                changedWhileLoading.add(change);
+            }
+            if (changedWhileCompacting != null) {
+                changedWhileCompacting.add(change);
+            } else if (index.needsCompaction()) {
+                compacting = index;
+                live = index.liveMovieInfos();
+                changedWhileCompacting = new ArrayList<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compacting != null) {
+            compact(compacting, live);
+        }
+    }
+
+    private void compact(Index compacting, List<MovieInfo> live) {
+        var compacted = new Index();
+        live.forEach(compacted::add);
+        lock.writeLock().lock();
+        try {
+            // a reload may have replaced the index in the meantime, in which case it is kept
+            if (index == compacting) {
+                changedWhileCompacting.forEach(change -> apply(compacted, change));
+                index = compacted;
+            }
+            changedWhileCompacting = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Index index, MovieInfoChange change) {
+        if (change.movieInfo() != null) {
+            index.add(change.movieInfo());
+        } else if (change.type() == MovieInfoChange.Type.DELETE) {
+            index.remove(change.movieInfoId());
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        var normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(normalized))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Documents are numbered in insertion order; a replaced or removed document leaves a null slot.
+     */
+    private static final class Index {
+
+        private final NavigableMap<String, Postings> terms = new TreeMap<>();
+        private final List<Document> documents = new ArrayList<>();
+        private final Map<String, Integer> documentNumbers = new HashMap<>();
+
+        int size() {
+            return documentNumbers.size();
+        }
+
+        void add(MovieInfo movieInfo) {
+            remove(movieInfo.getMovieInfoId());
+            var number = documents.size();
+            var nameTerms = addPostings(tokenize(movieInfo.getName()), number, Postings::name);
+            var castTerms = addPostings(movieInfo.getCast() == null
+                    ? List.of()
+                    : tokenize(String.join(" ", movieInfo.getCast())), number, Postings::cast);
+            documents.add(new Document(movieInfo, nameTerms, castTerms));
+            documentNumbers.put(movieInfo.getMovieInfoId(), number);
+        }
+
+        /**
+         * @return the terms, as the instances held by the dictionary
+         */
+        private String[] addPostings(List<String> documentTerms, int number, Function<Postings, IntList> field) {
+            var canonicalTerms = new String[documentTerms.size()];
+            for (int i = 0; i < canonicalTerms.length; i++) {
+                var postings = terms.computeIfAbsent(documentTerms.get(i), Postings::new);
+                field.apply(postings).add(number);
+                canonicalTerms[i] = postings.term();
+            }
+            return canonicalTerms;
+        }
+
+        void remove(String movieInfoId) {
+            var number = documentNumbers.remove(movieInfoId);
+            if (number != null) {
+                documents.set(number, null);
+            }
+        }
+
+        boolean needsCompaction() {
+            return documents.size() > 1024 && documents.size() > 2 * documentNumbers.size();
+        }
+
+        List<MovieInfo> liveMovieInfos() {
+            return documents.stream()
+                    .filter(document -> document != null)
+                    .map(Document::movieInfo)
+                    .toList();
+        }
+
+        /**
+         * Walks the postings of the most selective query term, name before cast and whole term
+         * before prefixes, and checks the other query terms against each candidate's own terms.
+         */
+        List<MovieInfo> search(List<String> queryTerms, int limit) {
+            var driver = queryTerms.getFirst();
+            var driverCount = Long.MAX_VALUE;
+            for (var term : queryTerms) {
+                var count = postingsCount(prefixRange(term), driverCount);
+                if (count < driverCount) {
+                    driver = term;
+                    driverCount = count;
+                }
+            }
+            var range = prefixRange(driver);
+            var whole = range.get(driver);
+
+            var seen = new HashSet<Integer>();
+            var hits = new ArrayList<Hit>();
+            if (whole != null) {
+                collect(whole.name, queryTerms, seen, hits);
+            }
+            range.values().forEach(postings -> collect(postings.name, queryTerms, seen, hits));
+            if (whole != null) {
+                collect(whole.cast, queryTerms, seen, hits);
+            }
+            range.values().forEach(postings -> collect(postings.cast, queryTerms, seen, hits));
+
+            return hits.stream()
+                    .sorted(Comparator.comparingInt(Hit::score).reversed()
+                            .thenComparingInt(hit -> hit.movieInfo().getName().length())
+                            .thenComparing(hit -> hit.movieInfo().getMovieInfoId()))
+                    .limit(limit)
+                    .map(Hit::movieInfo)
+                    .toList();
+        }
+
+        private NavigableMap<String, Postings> prefixRange(String term) {
+            return terms.subMap(term, true, term + Character.MAX_VALUE, false);
+        }
+
+        private void collect(IntList postings, List<String> queryTerms, Set<Integer> seen, List<Hit> hits) {
+            for (int p = 0; p < postings.size && seen.size() < MAX_CANDIDATES; p++) {
+                var number = postings.values[p];
+                var document = documents.get(number);
+                if (document == null || !seen.add(number)) {
+                    continue;
+                }
+                var score = document.score(queryTerms);
+                if (score > 0) {
+                    hits.add(new Hit(document.movieInfo(), score));
+                }
+            }
+        }
+
+        private static long postingsCount(NavigableMap<String, Postings> range, long bound) {
+            long count = 0;
+            for (var postings : range.values()) {
+                count += postings.name.size + postings.cast.size;
+                if (count >= bound) {
+                    break;
+                }
+            }
+            return count;
+        }
+    }
+
+    private record Document(MovieInfo movieInfo, String[] nameTerms, String[] castTerms) {
+
+        /**
+         * @return the sum over the query terms of their best match, or 0 if one does not match
+         */
+        int score(List<String> queryTerms) {
+            var total = 0;
+            for (var queryTerm : queryTerms) {
+                var best = Math.max(best(nameTerms, queryTerm, NAME_TERM, NAME_PREFIX),
+                        best(castTerms, queryTerm, CAST_TERM, CAST_PREFIX));
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            return total;
+        }
+
+        private static int best(String[] terms, String queryTerm, int wholeScore, int prefixScore) {
+            var best = 0;
+            for (var term : terms) {
+                if (term.equals(queryTerm)) {
+                    return wholeScore;
+                }
+                if (term.startsWith(queryTerm)) {
+                    best = prefixScore;
+                }
+            }
+            return best;
+        }
+    }
+
+    private record Hit(MovieInfo movieInfo, int score) {
+    }
+
+    private record Postings(String term, IntList name, IntList cast) {
+
+        Postings(String term) {
+            this(term, new IntList(), new IntList());
+        }
+    }
+
+    /**
+     * Growable array of ascending document numbers, each added once.
+     */
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
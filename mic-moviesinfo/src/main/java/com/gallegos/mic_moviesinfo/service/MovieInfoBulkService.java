@@ -0,0 +1,157 @@
+package com.gallegos.mic_moviesinfo.service;
+
+import com.gallegos.mic_moviesinfo.cache.MovieInfoCache;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoBulkResult;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoBulkResult.Status;
+import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import com.gallegos.mic_moviesinfo.search.MovieInfoSearchIndex;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests NDJSON uploads of {@link MovieInfo}s. Lines are parsed and validated one by one, then
+ * written in batches of {@code movieinfos.bulk.batchSize} through unordered bulk writes. Only one
+ * batch is held at a time and the next lines are requested once it is written, so memory stays
+ * bounded whatever the size of the upload.
+ */
+@Service
+@Slf4j
+public class MovieInfoBulkService {
+
+    private record Line(long number, MovieInfo movieInfo, boolean generatedId, MovieInfoBulkResult rejection) {
+    }
+
+    private final MovieInfoRepository movieInfoRepository;
+    private final MovieInfoCache movieInfoCache;
+    private final MovieInfoSearchIndex movieInfoSearchIndex;
+    private final JsonMapper jsonMapper;
+    private final Validator validator;
+    private final int batchSize;
+
+    public MovieInfoBulkService(MovieInfoRepository movieInfoRepository,
+                                MovieInfoCache movieInfoCache,
+                                MovieInfoSearchIndex movieInfoSearchIndex,
+                                JsonMapper jsonMapper,
+                                Validator validator,
+                                @Value("${movieinfos.bulk.batchSize:500}") int batchSize) {
+        this.movieInfoRepository = movieInfoRepository;
+        this.movieInfoCache = movieInfoCache;
+        this.movieInfoSearchIndex = movieInfoSearchIndex;
+        this.jsonMapper = jsonMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return one result per non-blank line, in line order
+     */
+    public Flux<MovieInfoBulkResult> ingest(Flux<String> lines) {
+        return lines.index()
+                .filter(line -> !line.getT2().isBlank())
+                .map(line -> parse(line.getT1() + 1, line.getT2()))
+                .buffer(batchSize)
+                .concatMap(this::write);
+    }
+
+    private Line parse(long number, String json) {
+        MovieInfo movieInfo;
+        try {
+            movieInfo = jsonMapper.readValue(json, MovieInfo.class);
+        } catch (JacksonException ex) {
+            return rejected(number, "Malformed JSON: " + ex.getOriginalMessage());
+        }
+        var violations = validator.validate(movieInfo);
+        if (!violations.isEmpty()) {
+            return rejected(number, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        var generatedId = movieInfo.getMovieInfoId() == null;
+        if (generatedId) {
+            movieInfo.setMovieInfoId(new ObjectId().toHexString());
+        }
+        return new Line(number, movieInfo, generatedId, null);
+    }
+
+    private static Line rejected(long number, String error) {
+        return new Line(number, null, false, new MovieInfoBulkResult(number, Status.INVALID, null, error));
+    }
+
+    private Flux<MovieInfoBulkResult> write(List<Line> batch) {
+        var toInsert = batch.stream().filter(line -> line.rejection() == null && line.generatedId()).toList();
+        var toReplace = batch.stream().filter(line -> line.rejection() == null && !line.generatedId()).toList();
+        if (toInsert.isEmpty() && toReplace.isEmpty()) {
+            return Flux.fromIterable(batch).map(Line::rejection);
+        }
+        var written = new ArrayList<>(toInsert);
+        written.addAll(toReplace);
+
+        return movieInfoRepository.bulkInsertOrReplace(
+                        toInsert.stream().map(Line::movieInfo).toList(),
+                        toReplace.stream().map(Line::movieInfo).toList())
+                .map(result -> Map.<Long, String>of())
+                .onErrorResume(ex -> Mono.just(failures(ex, written)))
+                .doOnNext(failures -> {
+                    movieInfoCache.evictAll(written.stream()
+                            .map(line -> line.movieInfo().getMovieInfoId())
+                            .toList());
+                    written.stream()
+                            .filter(line -> !failures.containsKey(line.number()))
+                            .forEach(line -> movieInfoSearchIndex.index(line.movieInfo()));
+                })
+                .flatMapIterable(failures -> batch.stream()
+                        .map(line -> toResult(line, failures))
+                        .toList());
+    }
+
+    /**
+     * Maps the error of a bulk write to the lines it failed. Unordered writes report each failed
+     * operation and still apply all the others; any other error fails the whole batch.
+     */
+    private static Map<Long, String> failures(Throwable ex, List<Line> written) {
+        log.warn("Bulk write of {} movie infos failed: {}", written.size(), ex.getMessage());
+        for (var cause = ex; cause != null; cause = cause.getCause()) {
+            List<BulkWriteError> errors = null;
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                errors = bulkOperationException.getErrors();
+            } else if (cause instanceof MongoBulkWriteException mongoBulkWriteException) {
+                errors = mongoBulkWriteException.getWriteErrors();
+            }
+            if (errors != null) {
+                return errors.stream()
+                        .collect(Collectors.toMap(error -> written.get(error.getIndex()).number(), BulkWriteError::getMessage));
+            }
+        }
+        return written.stream().collect(Collectors.toMap(Line::number, line -> String.valueOf(ex.getMessage())));
+    }
+
+    private static MovieInfoBulkResult toResult(Line line, Map<Long, String> failures) {
+        if (line.rejection() != null) {
+            return line.rejection();
+        }
+        var id = line.movieInfo().getMovieInfoId();
+        var error = failures.get(line.number());
+        if (error != null) {
+            return new MovieInfoBulkResult(line.number(), Status.FAILED, id, error);
+        }
+        return new MovieInfoBulkResult(line.number(), line.generatedId() ? Status.INSERTED : Status.UPSERTED, id, null);
+    }
+}
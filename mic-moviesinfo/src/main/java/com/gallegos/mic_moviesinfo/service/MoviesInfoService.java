@@ -1,49 +1,237 @@
 package com.gallegos.mic_moviesinfo.service;
 
+import com.gallegos.mic_moviesinfo.cache.MovieInfoCache;
+import com.gallegos.mic_moviesinfo.cache.MovieInfoFacetCache;
+import com.gallegos.mic_moviesinfo.domain.FacetCount;
 import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPage;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPatch;
+import com.gallegos.mic_moviesinfo.domain.ReleaseDateInterval;
 import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import com.gallegos.mic_moviesinfo.search.MovieInfoSearchIndex;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 @Service
 @AllArgsConstructor
 public class MoviesInfoService {
 
+    /**
+     * Fields a read can be restricted to; the id is always returned.
+     */
+    public static final Set<String> PROJECTABLE_FIELDS = Set.of("name", "year", "cast", "releaseDate");
+
     @Autowired
     private MovieInfoRepository movieInfoRepository;
 
+    @Autowired
+    private MovieInfoCache movieInfoCache;
+
+    @Autowired
+    private MovieInfoSearchIndex movieInfoSearchIndex;
+
+    @Autowired
+    private MovieInfoFacetCache movieInfoFacetCache;
+
     public Mono<MovieInfo> addMovieInfo(MovieInfo movieInfo) {
-        return movieInfoRepository.save(movieInfo);
+        return movieInfoRepository.save(movieInfo)
+                .doOnSuccess(saved -> {
+                    movieInfoCache.evict(saved.getMovieInfoId(), saved.getYear());
+                    movieInfoSearchIndex.index(saved);
+                });
+    }
+
+    /**
+     * Keyset pagination: every page is an index range scan that starts right after the cursor, on
+     * {@code _id} or on {@code (year, _id)} when filtering by year, so its cost does not depend on
+     * how deep the page is. Ids are compared within their BSON type, which holds for generated ObjectIds.
+     * Year pages are served from the {@link MovieInfoCache}.
+     *
+     * @param year  optional year filter
+     * @param after cursor returned with the previous page, null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another year
+     */
+    public Mono<MovieInfoPage> getMoviesInfoPage(Integer year, String after, int limit) {
+        if (year == null) {
+            return loadMoviesInfoPage(null, after, limit);
+        }
+        return movieInfoCache.getYearPage(year, after, limit, () -> loadMoviesInfoPage(year, after, limit));
+    }
+
+    private Mono<MovieInfoPage> loadMoviesInfoPage(Integer year, String after, int limit) {
+        // one extra document tells whether there is a next page
+        var fetchLimit = Limit.of(limit + 1);
+        Flux<MovieInfo> movieInfos;
+        if (year == null) {
+            movieInfos = after == null
+                    ? movieInfoRepository.findAllByOrderByMovieInfoIdAsc(fetchLimit)
+                    : movieInfoRepository.findByMovieInfoIdGreaterThanOrderByMovieInfoIdAsc(decodeCursor(after, null), fetchLimit);
+        } else {
+            movieInfos = after == null
+                    ? movieInfoRepository.findByYearOrderByYearAscMovieInfoIdAsc(year, fetchLimit)
+                    : movieInfoRepository.findByYearAndMovieInfoIdGreaterThanOrderByYearAscMovieInfoIdAsc(
+                            year, decodeCursor(after, year), fetchLimit);
+        }
+        return toPage(movieInfos, year, limit);
     }
 
-    public Flux<MovieInfo> getAllMoviesInfo() {
-        return movieInfoRepository.findAll();
+    /**
+     * Same pages as {@link #getMoviesInfoPage(Integer, String, int)}, with only the given
+     * {@link #PROJECTABLE_FIELDS} read from Mongo. Projected reads bypass the cache.
+     */
+    public Mono<MovieInfoPage> getMoviesInfoPage(Integer year, String after, int limit, Set<String> fields) {
+        var criteria = year == null ? new Criteria() : where("year").is(year);
+        if (after != null) {
+            criteria.and("movieInfoId").gt(decodeCursor(after, year));
+        }
+        var sort = year == null ? Sort.by("movieInfoId") : Sort.by("year", "movieInfoId");
+        var query = Query.query(criteria)
+                .with(sort)
+                .limit(limit + 1);
+        return toPage(movieInfoRepository.findProjected(query, fields), year, limit);
+    }
+
+    private static Mono<MovieInfoPage> toPage(Flux<MovieInfo> movieInfos, Integer year, int limit) {
+        return movieInfos
+                .collectList()
+                .map(page -> page.size() <= limit
+                        ? new MovieInfoPage(page, null)
+                        : new MovieInfoPage(page.subList(0, limit), encodeCursor(page.get(limit - 1), year)));
     }
 
     public Mono<MovieInfo> getAllMoviesInfoById(String id) {
-        return movieInfoRepository.findById(id)
-                .flatMap(Mono::just);
+        return movieInfoCache.getById(id, movieInfoRepository::findById);
+    }
+
+    public Mono<MovieInfo> getAllMoviesInfoById(String id, Set<String> fields) {
+        return movieInfoRepository.findProjected(Query.query(where("movieInfoId").is(id)), fields)
+                .next();
+    }
+
+    public Flux<MovieInfo> getMoviesInfoByIds(List<String> ids) {
+        return movieInfoRepository.findAllById(ids);
+    }
+
+    public Flux<MovieInfo> getMoviesInfoByIds(List<String> ids, Set<String> fields) {
+        return movieInfoRepository.findProjected(Query.query(where("movieInfoId").in(ids)), fields);
+    }
+
+    /**
+     * Prefix search over names and cast members, best matches first.
+     */
+    public Flux<MovieInfo> searchMoviesInfo(String query, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(movieInfoSearchIndex.search(query, limit)));
+    }
+
+    /**
+     * Facets are aggregated by Mongo and served from the {@link MovieInfoFacetCache}.
+     */
+    public Flux<FacetCount<Integer>> getYearFacet() {
+        return movieInfoFacetCache.get("year", null, movieInfoRepository::countByYear);
+    }
+
+    public Flux<FacetCount<String>> getCastFacet(int limit) {
+        return movieInfoFacetCache.get("cast", limit, () -> movieInfoRepository.countByCast(limit));
+    }
+
+    public Flux<FacetCount<String>> getReleaseDateFacet(ReleaseDateInterval interval) {
+        return movieInfoFacetCache.get("releaseDate", interval, () -> movieInfoRepository.countByReleaseDate(interval));
     }
 
     public Mono<MovieInfo> updateMovieInfo(MovieInfo updatedMovieInfo, String id) {
-        return movieInfoRepository.findById(id)
-                .flatMap(movieInfo -> {
-                    movieInfo.setCast(updatedMovieInfo.getCast());
-                    movieInfo.setName(updatedMovieInfo.getName());
-                    movieInfo.setYear(updatedMovieInfo.getYear());
-                    movieInfo.setReleaseDate(updatedMovieInfo.getReleaseDate());
-                    return movieInfoRepository.save(movieInfo);
+        var update = new Update()
+                .set("cast", updatedMovieInfo.getCast())
+                .set("name", updatedMovieInfo.getName())
+                .set("year", updatedMovieInfo.getYear())
+                .set("releaseDate", updatedMovieInfo.getReleaseDate());
+        return movieInfoRepository.updateById(id, update)
+                .doOnSuccess(updated -> {
+                    movieInfoCache.evict(id, null);
+                    if (updated != null) {
+                        movieInfoSearchIndex.index(updated);
+                    }
+                });
+    }
+
+    /**
+     * Applies only the fields present in the patch, in a single atomic round-trip, so concurrent
+     * patches touching different fields do not overwrite each other.
+     */
+    public Mono<MovieInfo> patchMovieInfo(MovieInfoPatch patch, String id) {
+        var update = new Update();
+        if (patch.getName() != null) {
+            update.set("name", patch.getName());
+        }
+        if (patch.getYear() != null) {
+            update.set("year", patch.getYear());
+        }
+        if (patch.getReleaseDate() != null) {
+            update.set("releaseDate", patch.getReleaseDate());
+        }
+        if (patch.getCast() != null) {
+            // $set and $push cannot target the same field, so a replaced cast absorbs the additions
+            var cast = new ArrayList<>(patch.getCast());
+            if (patch.getAddCast() != null) {
+                cast.addAll(patch.getAddCast());
+            }
+            update.set("cast", cast);
+        } else if (patch.getAddCast() != null && !patch.getAddCast().isEmpty()) {
+            update.push("cast").each(patch.getAddCast().toArray());
+        }
+        if (update.getUpdateObject().isEmpty()) {
+            return movieInfoRepository.findById(id);
+        }
+        return movieInfoRepository.updateById(id, update)
+                .doOnSuccess(patched -> {
+                    movieInfoCache.evict(id, patch.getYear() == null && patched != null ? patched.getYear() : null);
+                    if (patched != null) {
+                        movieInfoSearchIndex.index(patched);
+                    }
                 });
     }
 
     public Mono<Void> deleteMovieInfo(String id) {
-        return movieInfoRepository.deleteById(id);
+        return movieInfoRepository.deleteById(id)
+                .doOnSuccess(deleted -> {
+                    movieInfoCache.evict(id, null);
+                    movieInfoSearchIndex.remove(id);
+                });
+    }
+
+    /**
+     * The cursor is opaque to clients: the last id of the page, prefixed by its year when the listing
+     * is filtered by year, in URL-safe Base64.
+     */
+    private static String encodeCursor(MovieInfo last, Integer year) {
+        var key = year == null ? last.getMovieInfoId() : year + ":" + last.getMovieInfoId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
     }
 
-    public Flux<MovieInfo> getMoviesInfoByYear(Integer year) {
-        return movieInfoRepository.findByYear(year);
+    private static String decodeCursor(String cursor, Integer year) {
+        var key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (year == null) {
+            return key;
+        }
+        var separator = key.indexOf(':');
+        if (separator < 0 || !key.substring(0, separator).equals(year.toString())) {
+            throw new IllegalArgumentException("Cursor does not belong to year " + year);
+        }
+        return key.substring(separator + 1);
     }
 }
@@ -0,0 +1,88 @@
+package com.gallegos.mic_moviesinfo.integration.cache;
+
+import com.gallegos.mic_moviesinfo.cache.MovieInfoCache;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.MongodArguments;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import de.flapdoodle.reverse.transitions.Start;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Change streams need a replica set, so this test runs against its own single-node replica set
+ * and checks that a write made behind the service's back (straight to the collection) evicts the
+ * cached entry.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MovieInfoChangeFeedIT {
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+
+    @Autowired
+    private MovieInfoCache movieInfoCache;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        mongod = Mongod.instance()
+                .withMongodArguments(Start.to(MongodArguments.class).initializedWith(MongodArguments.defaults()
+                        .withReplication(Storage.of("rs0", 10))))
+                .start(Version.Main.V7_0);
+        var address = mongod.current().getServerAddress();
+        try (var client = MongoClients.create("mongodb://" + address + "/?directConnection=true")) {
+            client.getDatabase("admin").runCommand(new Document("replSetInitiate", new Document("_id", "rs0")
+                    .append("members", List.of(new Document("_id", 0).append("host", address.toString())))));
+        }
+        registry.add("spring.mongodb.uri", () -> "mongodb://" + address + "/moviesdb-it?replicaSet=rs0");
+    }
+
+    @AfterAll
+    static void stopMongod() {
+        mongod.close();
+    }
+
+    @Test
+    void externalWrite_evictsCachedMovieInfo() {
+        // given
+        var saved = mongoTemplate.save(new MovieInfo(null, "Batman Begins",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"))).block();
+        movieInfoCache.getById(saved.getMovieInfoId(), this::load).block();
+
+        // when
+        mongoTemplate.updateFirst(Query.query(where("_id").is(saved.getMovieInfoId())),
+                Update.update("name", "Batman Begins Remastered"), MovieInfo.class).block();
+
+        // then
+        await().atMost(Duration.ofSeconds(10)).until(() -> "Batman Begins Remastered".equals(
+                movieInfoCache.getById(saved.getMovieInfoId(), this::load).block().getName()));
+    }
+
+    private Mono<MovieInfo> load(String id) {
+        return mongoTemplate.findById(id, MovieInfo.class);
+    }
+}
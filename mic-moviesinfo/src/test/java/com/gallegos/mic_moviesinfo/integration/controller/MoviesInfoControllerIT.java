@@ -1,20 +1,29 @@
 package com.gallegos.mic_moviesinfo.integration.controller;
 
+import com.gallegos.mic_moviesinfo.controller.MoviesInfoController;
 import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoBulkResult;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPatch;
 import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import com.gallegos.mic_moviesinfo.search.MovieInfoSearchIndex;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -31,6 +40,9 @@ class MoviesInfoControllerIT {
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private MovieInfoSearchIndex movieInfoSearchIndex;
+
     @BeforeEach
     void beforeEach() {
         var movieinfos = List.of(
@@ -166,4 +178,109 @@ class MoviesInfoControllerIT {
                 .expectBodyList(MovieInfo.class)
                 .hasSize(1);
     }
+
+    @Test
+    void getAllMovieInfos_keysetPages() {
+        // given ids of one BSON type, as generated by Mongo
+        movieInfoRepository.deleteAll().block();
+        var movieinfos = IntStream.range(0, 5)
+                .mapToObj(i -> new MovieInfo(null, "Movie " + i, 2005, List.of("Christian Bale"), null))
+                .toList();
+        movieInfoRepository.saveAll(movieinfos).blockLast();
+
+        // when
+        var names = new ArrayList<String>();
+        String cursor = null;
+        do {
+            var after = cursor;
+            var result = webTestClient
+                    .get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path(MOVIES_INFO_URL)
+                            .queryParam("year", 2005)
+                            .queryParam("limit", 2)
+                            .queryParamIfPresent("after", Optional.ofNullable(after))
+                            .build())
+                    .exchange()
+                    .expectStatus()
+                    .is2xxSuccessful()
+                    .expectBodyList(MovieInfo.class)
+                    .returnResult();
+            result.getResponseBody().forEach(movieInfo -> names.add(movieInfo.getName()));
+            cursor = result.getResponseHeaders().getFirst(MoviesInfoController.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        // then every movie is listed exactly once
+        assertEquals(5, names.size());
+        assertEquals(5, Set.copyOf(names).size());
+    }
+
+    @Test
+    void bulkAddMovieInfos() {
+        // given
+        var body = """
+                {"name":"Batman Returns","year":1992,"cast":["Michael Keaton"]}
+                {"movieInfoId":"abc","name":"Dark Knight Rises","year":2012,"cast":["Christian Bale","Anne Hathaway"]}
+                {"name":"","year":1989,"cast":["Michael Keaton"]}
+                """;
+
+        // when
+        var results = webTestClient
+                .post()
+                .uri(MOVIES_INFO_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfoBulkResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        // then
+        assertEquals(List.of(MovieInfoBulkResult.Status.INSERTED, MovieInfoBulkResult.Status.UPSERTED,
+                MovieInfoBulkResult.Status.INVALID), results.stream().map(MovieInfoBulkResult::status).toList());
+        assertEquals(4, movieInfoRepository.count().block());
+        assertEquals(2, movieInfoRepository.findById("abc").block().getCast().size());
+    }
+
+    @Test
+    void patchMovieInfo() {
+        // given
+        var movieInfoId = "abc";
+        var patch = new MovieInfoPatch(null, 2013, null, List.of("Anne Hathaway"), null);
+
+        // when
+        webTestClient
+                .patch()
+                .uri(MOVIES_INFO_URL + "/{id}", movieInfoId)
+                .bodyValue(patch)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(MovieInfo.class)
+                .consumeWith(movieInfoEntityExchangeResult -> {
+                    var patchedMovieInfo = movieInfoEntityExchangeResult.getResponseBody();
+                    assertEquals("Dark Knight Rises", patchedMovieInfo.getName());
+                    assertEquals(2013, patchedMovieInfo.getYear());
+                    assertEquals(List.of("Christian Bale", "Tom Hardy", "Anne Hathaway"), patchedMovieInfo.getCast());
+                });
+    }
+
+    @Test
+    void searchMovieInfos() {
+        // given
+        movieInfoSearchIndex.load().block();
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/search?q=dark kni&limit=5")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(MovieInfo.class)
+                .consumeWith(response -> assertEquals(List.of("The Dark Knight", "Dark Knight Rises"),
+                        response.getResponseBody().stream().map(MovieInfo::getName).toList()));
+    }
 }
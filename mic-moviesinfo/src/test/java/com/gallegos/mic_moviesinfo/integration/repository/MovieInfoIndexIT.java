@@ -0,0 +1,87 @@
+package com.gallegos.mic_moviesinfo.integration.repository;
+
+import com.gallegos.mic_moviesinfo.config.MongoIndexConfig;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.mongodb.test.autoconfigure.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Sorts.ascending;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks with {@code explain()} that every repository query path is answered from an index.
+ */
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(MongoIndexConfig.class)
+class MovieInfoIndexIT {
+
+    @Autowired
+    private MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setup() {
+        var movieinfos = List.of(
+                new MovieInfo(null, "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo(null, "The Dark Knight",
+                        2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")));
+
+        movieInfoRepository.saveAll(movieinfos)
+                .blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void findByYear_usesIndex() {
+        assertThat(winningPlan(eq("year", 2005), null)).contains("IXSCAN").doesNotContain("COLLSCAN");
+    }
+
+    @Test
+    void findByName_usesIndex() {
+        assertThat(winningPlan(eq("name", "Batman Begins"), null)).contains("IXSCAN").doesNotContain("COLLSCAN");
+    }
+
+    @Test
+    void yearPage_usesCompoundIndexWithoutSort() {
+        var plan = winningPlan(and(eq("year", 2005), gt("_id", "0")), ascending("year", "_id"));
+
+        assertThat(plan).contains("year_id").doesNotContain("COLLSCAN").doesNotContain("\"SORT\"");
+    }
+
+    private String winningPlan(Bson filter, Bson sort) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(MovieInfo.class))
+                .flatMap(collection -> {
+                    var find = collection.find(filter);
+                    if (sort != null) {
+                        find = find.sort(sort);
+                    }
+                    return Mono.from(find.explain());
+                })
+                .map(explain -> explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson())
+                .block();
+    }
+}
@@ -1,10 +1,14 @@
 package com.gallegos.mic_moviesinfo.integration.repository;
 
+import com.gallegos.mic_moviesinfo.domain.FacetCount;
 import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.ReleaseDateInterval;
 import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.mongodb.test.autoconfigure.DataMongoTest;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.context.ActiveProfiles;
 import reactor.test.StepVerifier;
 
@@ -68,6 +72,19 @@ class MovieInfoRepositoryIT {
                 .verifyComplete();
     }
 
+    @Test
+    void findAllById() {
+        // given
+
+        // when
+        var movieInfosFlux = movieInfoRepository.findAllById(List.of("abc", "unknown"));
+
+        // then
+        StepVerifier.create(movieInfosFlux)
+                .assertNext(movieInfo -> assertEquals("Dark Knight Rises", movieInfo.getName()))
+                .verifyComplete();
+    }
+
     @Test
     void saveMovieInfo() {
         // given
@@ -144,4 +161,44 @@ class MovieInfoRepositoryIT {
                 .verifyComplete();
     }
 
+    @Test
+    void findProjected() {
+        // given
+
+        // when
+        var movieInfoFlux = movieInfoRepository.findProjected(Query.query(Criteria.where("movieInfoId").is("abc")),
+                List.of("name", "year"));
+
+        // then
+        StepVerifier.create(movieInfoFlux)
+                .assertNext(movieInfo -> {
+                    assertEquals("abc", movieInfo.getMovieInfoId());
+                    assertEquals("Dark Knight Rises", movieInfo.getName());
+                    assertEquals(2012, movieInfo.getYear());
+                    assertNull(movieInfo.getCast());
+                    assertNull(movieInfo.getReleaseDate());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void countByYear() {
+        StepVerifier.create(movieInfoRepository.countByYear())
+                .expectNext(new FacetCount<>(2005, 1), new FacetCount<>(2008, 1), new FacetCount<>(2012, 1))
+                .verifyComplete();
+    }
+
+    @Test
+    void countByCast() {
+        StepVerifier.create(movieInfoRepository.countByCast(2))
+                .expectNext(new FacetCount<>("Christian Bale", 3), new FacetCount<>("HeathLedger", 1))
+                .verifyComplete();
+    }
+
+    @Test
+    void countByReleaseDate() {
+        StepVerifier.create(movieInfoRepository.countByReleaseDate(ReleaseDateInterval.MONTH))
+                .expectNext(new FacetCount<>("2005-06", 1), new FacetCount<>("2008-07", 1), new FacetCount<>("2012-07", 1))
+                .verifyComplete();
+    }
 }
@@ -76,21 +76,4 @@ class FluxAndMonoControllerTest {
                     assertEquals("Hello world", responseBody);
                 });
     }
-
-    @Test
-    void stream() {
-        var flux = webTestClient
-                .get()
-                .uri("/stream")
-                .exchange()
-                .expectStatus()
-                .is2xxSuccessful()
-                .returnResult(Long.class)
-                .getResponseBody();
-
-        StepVerifier.create(flux)
-                .expectNext(0L, 1L, 2L, 3L)
-                .thenCancel()
-                .verify();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.gallegos.mic_moviesinfo.unit.cache;
+
+import com.gallegos.mic_moviesinfo.cache.MovieInfoCache;
+import com.gallegos.mic_moviesinfo.cache.MovieInfoFacetCache;
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChangeFeed;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPatch;
+import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import com.gallegos.mic_moviesinfo.search.MovieInfoSearchIndex;
+import com.gallegos.mic_moviesinfo.service.MoviesInfoService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Read-heavy mix (one patch every {@value #WRITE_EVERY} operations) over a small catalog, against a
+ * repository answering after a fixed delay, with and without the cache. Throughput is only logged;
+ * what is asserted is how many reads reach the repository.
+ */
+@Slf4j
+class MovieInfoCacheBenchmarkTest {
+
+    private static final Duration MONGO_DELAY = Duration.ofMillis(5);
+    private static final int OPERATIONS = 4_000;
+    private static final int CONCURRENCY = 32;
+    private static final int CATALOG_SIZE = 100;
+    private static final int WRITE_EVERY = 20;
+    private static final int WRITES = OPERATIONS / WRITE_EVERY;
+
+    @Test
+    void cachedReads_spareTheRepository() {
+        // given
+        var uncachedRepository = repository();
+        var cachedRepository = repository();
+
+        // when
+        var uncached = throughput(service(uncachedRepository, false));
+        var cached = throughput(service(cachedRepository, true));
+        log.info("Read-heavy throughput uncached={} ops/s cached={} ops/s", uncached, cached);
+
+        // then every read goes to Mongo without the cache; with it, only the first read of each
+        // movie and the first read after each patch do
+        verify(uncachedRepository, times(OPERATIONS - WRITES)).findById(anyString());
+        verify(cachedRepository, atMost(CATALOG_SIZE + WRITES)).findById(anyString());
+    }
+
+    private static long throughput(MoviesInfoService service) {
+        var start = System.nanoTime();
+        Flux.range(0, OPERATIONS)
+                .flatMap(i -> {
+                    var id = String.valueOf(i % CATALOG_SIZE);
+                    return i % WRITE_EVERY == 0
+                            ? service.patchMovieInfo(new MovieInfoPatch(null, 2013, null, null, null), id)
+                            : service.getAllMoviesInfoById(id);
+                }, CONCURRENCY)
+                .blockLast();
+        return OPERATIONS * 1_000_000_000L / (System.nanoTime() - start);
+    }
+
+    private static MovieInfoRepository repository() {
+        var repository = mock(MovieInfoRepository.class);
+        when(repository.findById(anyString())).thenAnswer(invocation -> Mono.delay(MONGO_DELAY)
+                .map(tick -> movieInfo(invocation.getArgument(0))));
+        when(repository.updateById(anyString(), any())).thenAnswer(invocation -> Mono.delay(MONGO_DELAY)
+                .map(tick -> movieInfo(invocation.getArgument(0))));
+        return repository;
+    }
+
+    private static MoviesInfoService service(MovieInfoRepository repository, boolean cacheEnabled) {
+        var changeFeed = mock(MovieInfoChangeFeed.class);
+        when(changeFeed.changes()).thenReturn(Flux.never());
+        var cache = new MovieInfoCache(changeFeed, cacheEnabled, 10_000, Duration.ofMinutes(5));
+        return new MoviesInfoService(repository, cache, mock(MovieInfoSearchIndex.class), mock(MovieInfoFacetCache.class));
+    }
+
+    private static MovieInfo movieInfo(String id) {
+        return new MovieInfo(id, "Batman Begins", 2005, List.of("Christian Bale"), null);
+    }
+}
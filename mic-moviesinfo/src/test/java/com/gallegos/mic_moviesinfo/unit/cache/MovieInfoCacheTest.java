@@ -0,0 +1,117 @@
+package com.gallegos.mic_moviesinfo.unit.cache;
+
+import com.gallegos.mic_moviesinfo.cache.MovieInfoCache;
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChange;
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChangeFeed;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovieInfoCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private Sinks.Many<MovieInfoChange> changes;
+    private MovieInfoCache movieInfoCache;
+
+    @BeforeEach
+    void setup() {
+        changes = Sinks.many().multicast().directBestEffort();
+        var changeFeed = mock(MovieInfoChangeFeed.class);
+        when(changeFeed.changes()).thenReturn(changes.asFlux());
+        movieInfoCache = new MovieInfoCache(changeFeed, true, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void getById_loadsOnce() {
+        // when
+        movieInfoCache.getById("abc", this::loader).block();
+        var movieInfo = movieInfoCache.getById("abc", this::loader).block();
+
+        // then
+        assertEquals("version 1", movieInfo.getName());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getById_evictedByChange() {
+        // given
+        movieInfoCache.getById("abc", this::loader).block();
+
+        // when
+        changes.tryEmitNext(new MovieInfoChange(MovieInfoChange.Type.UPDATE, "abc", null, Set.of("cast")));
+
+        // then
+        assertEquals("version 2", movieInfoCache.getById("abc", this::loader).block().getName());
+    }
+
+    @Test
+    void getById_lookupRacingWithWriteIsNotCached() {
+        // given a lookup that is still in flight
+        var inFlight = Sinks.<MovieInfo>one();
+        movieInfoCache.getById("abc", id -> inFlight.asMono()).subscribe();
+
+        // when a write lands before it completes
+        movieInfoCache.evict("abc", 2012);
+        inFlight.tryEmitValue(new MovieInfo("abc", "stale", 2012, List.of(), null));
+
+        // then
+        assertEquals("version 1", movieInfoCache.getById("abc", this::loader).block().getName());
+    }
+
+    @Test
+    void getYearPage_evictedOnlyForTouchedYear() {
+        // given
+        var pageLoads = new AtomicInteger();
+        movieInfoCache.getYearPage(2005, null, 10, () -> page(pageLoads)).block();
+        movieInfoCache.getYearPage(2008, null, 10, () -> page(pageLoads)).block();
+
+        // when
+        changes.tryEmitNext(new MovieInfoChange(MovieInfoChange.Type.INSERT, "def",
+                new MovieInfo("def", "Batman Begins", 2005, List.of(), null), Set.of()));
+        movieInfoCache.getYearPage(2005, null, 10, () -> page(pageLoads)).block();
+        movieInfoCache.getYearPage(2008, null, 10, () -> page(pageLoads)).block();
+
+        // then
+        assertEquals(3, pageLoads.get());
+    }
+
+    @Test
+    void getYearPage_yearChangeOrResetDropsAllPages() {
+        // given
+        var pageLoads = new AtomicInteger();
+        movieInfoCache.getYearPage(2005, null, 10, () -> page(pageLoads)).block();
+
+        // when
+        changes.tryEmitNext(new MovieInfoChange(MovieInfoChange.Type.UPDATE, "def",
+                new MovieInfo("def", "Batman Begins", 2006, List.of(), null), Set.of("year")));
+        movieInfoCache.getYearPage(2005, null, 10, () -> page(pageLoads)).block();
+        changes.tryEmitNext(MovieInfoChange.reset());
+        movieInfoCache.getYearPage(2005, null, 10, () -> page(pageLoads)).block();
+
+        // then
+        assertEquals(3, pageLoads.get());
+    }
+
+    private Mono<MovieInfo> loader(String id) {
+        return Mono.fromSupplier(() -> new MovieInfo(id, "version " + loads.incrementAndGet(), 2012, List.of(), null));
+    }
+
+    private static Mono<MovieInfoPage> page(AtomicInteger pageLoads) {
+        return Mono.fromSupplier(() -> {
+            pageLoads.incrementAndGet();
+            return new MovieInfoPage(List.of(), null);
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package com.gallegos.mic_moviesinfo.unit.controller;
+
+import com.gallegos.mic_moviesinfo.cache.MovieInfoCache;
+import com.gallegos.mic_moviesinfo.cache.MovieInfoFacetCache;
+import com.gallegos.mic_moviesinfo.controller.MoviesInfoController;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoProjection;
+import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import com.gallegos.mic_moviesinfo.search.MovieInfoSearchIndex;
+import com.gallegos.mic_moviesinfo.service.MovieInfoBulkService;
+import com.gallegos.mic_moviesinfo.service.MoviesInfoService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
+import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Payload size of a 100 item page, full vs. {@code fields=name,year}, through the real
+ * {@link MoviesInfoService}. The mocked repository projects like Mongo would, keeping only the
+ * requested fields and the id.
+ */
+@WebFluxTest(controllers = MoviesInfoController.class)
+@AutoConfigureWebTestClient
+@Import(MoviesInfoService.class)
+@Slf4j
+class MovieInfoProjectionBenchmarkTest {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int CAST_SIZE = 30;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private MovieInfoRepository movieInfoRepository;
+
+    @MockitoBean
+    private MovieInfoCache movieInfoCache;
+
+    @MockitoBean
+    private MovieInfoSearchIndex movieInfoSearchIndex;
+
+    @MockitoBean
+    private MovieInfoFacetCache movieInfoFacetCache;
+
+    @MockitoBean
+    private MovieInfoBulkService movieInfoBulkService;
+
+    @Test
+    void projectedPage_readsAndReturnsOnlyTheRequestedFields() {
+        // given
+        when(movieInfoRepository.findAllByOrderByMovieInfoIdAsc(any(Limit.class)))
+                .thenReturn(Flux.fromIterable(movieInfos()));
+        when(movieInfoRepository.findProjected(any(Query.class), any()))
+                .thenAnswer(invocation -> Flux.fromIterable(movieInfos())
+                        .map(movieInfo -> project(movieInfo, invocation.getArgument(1))));
+
+        // when
+        var fullBytes = responseBytes("/v1/movieinfos?limit=" + PAGE_SIZE);
+        var projectedBytes = responseBytes("/v1/movieinfos?limit=" + PAGE_SIZE + "&fields=name,year");
+        log.info("Page of {} movie infos: full={} bytes, fields=name,year {} bytes", PAGE_SIZE, fullBytes, projectedBytes);
+
+        // then the projection reaches Mongo, on the same page as the full read
+        var query = ArgumentCaptor.forClass(Query.class);
+        verify(movieInfoRepository).findProjected(query.capture(), eq(Set.of("name", "year")));
+        assertThat(query.getValue().getLimit()).isEqualTo(PAGE_SIZE + 1);
+        assertThat(query.getValue().getSortObject().keySet()).containsExactly("movieInfoId");
+        assertThat(projectedBytes).isLessThan(fullBytes / 5);
+
+        webTestClient.get()
+                .uri("/v1/movieinfos?limit=" + PAGE_SIZE + "&fields=name,year")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].name").isEqualTo("Movie 0")
+                .jsonPath("$[0].year").isEqualTo(2000)
+                .jsonPath("$[0].cast").doesNotExist()
+                .jsonPath("$[0].releaseDate").doesNotExist();
+    }
+
+    private int responseBytes(String uri) {
+        return webTestClient.get()
+                .uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody()
+                .length;
+    }
+
+    private static MovieInfo project(MovieInfo movieInfo, Collection<String> fields) {
+        return new MovieInfoProjection(movieInfo.getMovieInfoId(),
+                fields.contains("name") ? movieInfo.getName() : null,
+                fields.contains("year") ? movieInfo.getYear() : null,
+                fields.contains("cast") ? movieInfo.getCast() : null,
+                fields.contains("releaseDate") ? movieInfo.getReleaseDate() : null);
+    }
+
+    private static List<MovieInfo> movieInfos() {
+        return IntStream.range(0, PAGE_SIZE)
+                .mapToObj(i -> new MovieInfo("id" + i, "Movie " + i, 2000 + i % 25,
+                        IntStream.range(0, CAST_SIZE).mapToObj(c -> "Cast Member " + c).toList(),
+                        LocalDate.parse("2005-06-15")))
+                .toList();
+    }
+}
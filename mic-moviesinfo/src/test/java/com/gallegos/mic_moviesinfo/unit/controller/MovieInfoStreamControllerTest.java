@@ -0,0 +1,79 @@
+package com.gallegos.mic_moviesinfo.unit.controller;
+
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChange;
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChangeFeed;
+import com.gallegos.mic_moviesinfo.controller.MovieInfoStreamController;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovieInfoStreamControllerTest {
+
+    private Sinks.Many<MovieInfoChange> changes;
+    private MovieInfoStreamController streamController;
+
+    @BeforeEach
+    void setup() {
+        changes = Sinks.many().multicast().directBestEffort();
+        var changeFeed = mock(MovieInfoChangeFeed.class);
+        when(changeFeed.changes()).thenReturn(changes.asFlux());
+        streamController = new MovieInfoStreamController(changeFeed, 2, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void streamMovieInfos_mapsChanges() {
+        StepVerifier.create(streamController.streamMovieInfos())
+                .then(() -> {
+                    changes.tryEmitNext(new MovieInfoChange(MovieInfoChange.Type.INSERT, "abc",
+                            new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale"), null), Set.of()));
+                    changes.tryEmitNext(new MovieInfoChange(MovieInfoChange.Type.DELETE, "abc", null, Set.of()));
+                })
+                .assertNext(event -> {
+                    assertEquals("insert", event.event());
+                    assertEquals("Dark Knight Rises", event.data().movieInfo().getName());
+                })
+                .assertNext(event -> {
+                    assertEquals("delete", event.event());
+                    assertEquals("abc", event.data().movieInfoId());
+                })
+                .thenCancel()
+                .verify();
+        assertEquals(0, streamController.subscriberCount());
+    }
+
+    @Test
+    void streamMovieInfos_slowSubscriberKeepsNewestEvents() {
+        StepVerifier.create(streamController.streamMovieInfos(), 0)
+                .then(() -> List.of("1", "2", "3", "4", "5").forEach(id -> changes.tryEmitNext(
+                        new MovieInfoChange(MovieInfoChange.Type.DELETE, id, null, Set.of()))))
+                .thenRequest(10)
+                .assertNext(event -> assertEquals("4", event.data().movieInfoId()))
+                .assertNext(event -> assertEquals("5", event.data().movieInfoId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void streamMovieInfos_subscribersShareTheFeed() {
+        // given
+        var first = streamController.streamMovieInfos().subscribe();
+        var second = streamController.streamMovieInfos().subscribe();
+
+        // then
+        assertEquals(2, streamController.subscriberCount());
+        assertEquals(2, changes.currentSubscriberCount());
+        first.dispose();
+        second.dispose();
+        assertEquals(0, changes.currentSubscriberCount());
+    }
+}
@@ -0,0 +1,145 @@
+package com.gallegos.mic_moviesinfo.unit.controller;
+
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChange;
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChangeFeed;
+import com.gallegos.mic_moviesinfo.controller.MovieInfoStreamController;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Holds {@value #SUBSCRIBERS} SSE subscribers on one server and pushes rounds of catalog changes to
+ * all of them, checking that the heap stays flat from one round to the next. The subscriptions are
+ * multiplexed over a few h2c connections, since two sockets per subscriber would exceed the file
+ * descriptor limit of a single test JVM; each one is still a separate stream with its own buffer.
+ */
+@Slf4j
+class MovieInfoStreamLoadTest {
+
+    private static final int SUBSCRIBERS = 10_000;
+    private static final int EVENTS_PER_ROUND = 20;
+    private static final int ROUNDS = 3;
+    private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+
+    @Configuration
+    @EnableWebFlux
+    static class WebConfig {
+    }
+
+    private final Sinks.Many<MovieInfoChange> changes = Sinks.many().multicast().directBestEffort();
+    private final List<Disposable> subscriptions = new ArrayList<>();
+    private AnnotationConfigApplicationContext context;
+    private DisposableServer server;
+    private ConnectionProvider connectionProvider;
+
+    @AfterEach
+    void tearDown() {
+        // closing the connections first spares the server thousands of stream resets
+        connectionProvider.disposeLater().block(Duration.ofSeconds(10));
+        subscriptions.forEach(Disposable::dispose);
+        server.disposeNow();
+        context.close();
+    }
+
+    @Test
+    void streamMovieInfos_holdsTenThousandSubscribersWithFlatHeap() {
+        // given
+        var changeFeed = mock(MovieInfoChangeFeed.class);
+        when(changeFeed.changes()).thenReturn(changes.asFlux());
+        var streamController = new MovieInfoStreamController(changeFeed, 256, Duration.ofSeconds(15));
+        context = new AnnotationConfigApplicationContext();
+        context.register(WebConfig.class);
+        context.registerBean(MovieInfoStreamController.class, () -> streamController);
+        context.refresh();
+        server = HttpServer.create()
+                .port(0)
+                .protocol(HttpProtocol.H2C)
+                .http2Settings(settings -> settings.maxConcurrentStreams(100))
+                .handle(new ReactorHttpHandlerAdapter(WebHttpHandlerBuilder.applicationContext(context).build()))
+                .bindNow();
+        connectionProvider = ConnectionProvider.builder("stream-load-test")
+                .maxConnections(SUBSCRIBERS / 100)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        var webClient = WebClient.builder()
+                .baseUrl("http://localhost:" + server.port())
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)
+                        .protocol(HttpProtocol.H2C)))
+                .build();
+        var heapBeforeSubscribers = usedHeap();
+
+        // when
+        var received = new AtomicLong();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            subscriptions.add(webClient.get()
+                    .uri("/v1/movieinfos/stream")
+                    .retrieve()
+                    .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<MovieInfoEvent>>() {
+                    })
+                    .filter(event -> event.data() != null)
+                    .onErrorComplete()
+                    .subscribe(event -> received.incrementAndGet()));
+        }
+        await().atMost(Duration.ofMinutes(2)).until(() -> streamController.subscriberCount() == SUBSCRIBERS);
+        var heapWithSubscribers = usedHeap();
+        log.info("{} subscribers connected, {} KB of heap per subscriber (client and server)",
+                SUBSCRIBERS, (heapWithSubscribers - heapBeforeSubscribers) / SUBSCRIBERS / 1024);
+
+        var heapAfterRounds = new ArrayList<Long>();
+        for (int round = 1; round <= ROUNDS; round++) {
+            Flux.range(0, EVENTS_PER_ROUND)
+                    .map(i -> new MovieInfoChange(MovieInfoChange.Type.UPDATE, Integer.toString(i),
+                            new MovieInfo(Integer.toString(i), "Dark Knight Rises", 2012, List.of("Christian Bale"), null),
+                            Set.of("name")))
+                    .subscribe(changes::tryEmitNext);
+            var expected = (long) round * EVENTS_PER_ROUND * SUBSCRIBERS;
+            await().atMost(Duration.ofMinutes(2)).until(() -> received.get() >= expected);
+            heapAfterRounds.add(usedHeap());
+            log.info("Round {}: {} events delivered, heap used {} MB", round, expected, heapAfterRounds.getLast() / 1024 / 1024);
+        }
+
+        // then
+        assertThat(received.get()).isEqualTo((long) ROUNDS * EVENTS_PER_ROUND * SUBSCRIBERS);
+        assertThat(streamController.subscriberCount()).isEqualTo(SUBSCRIBERS);
+        assertThat(heapAfterRounds.getLast() - heapAfterRounds.getFirst()).isLessThan(MAX_HEAP_GROWTH);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
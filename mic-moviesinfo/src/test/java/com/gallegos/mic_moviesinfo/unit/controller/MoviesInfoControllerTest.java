@@ -1,12 +1,23 @@
 package com.gallegos.mic_moviesinfo.unit.controller;
 
 import com.gallegos.mic_moviesinfo.controller.MoviesInfoController;
+import com.gallegos.mic_moviesinfo.domain.FacetCount;
 import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoBulkResult;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPatch;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPage;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoProjection;
+import com.gallegos.mic_moviesinfo.domain.ReleaseDateInterval;
+import com.gallegos.mic_moviesinfo.filter.DeadlineWebFilter;
+import com.gallegos.mic_moviesinfo.service.MovieInfoBulkService;
 import com.gallegos.mic_moviesinfo.service.MoviesInfoService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
 import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
@@ -14,9 +25,13 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(controllers = MoviesInfoController.class)
@@ -31,6 +46,9 @@ class MoviesInfoControllerTest {
     @MockitoBean
     private MoviesInfoService moviesInfoService;
 
+    @MockitoBean
+    private MovieInfoBulkService movieInfoBulkService;
+
     @Test
     void getAllMoviesInfo() {
         // given
@@ -44,7 +62,7 @@ class MoviesInfoControllerTest {
         );
 
         // when
-        when(moviesInfoService.getAllMoviesInfo()).thenReturn(Flux.fromIterable(movieinfos));
+        when(moviesInfoService.getMoviesInfoPage(null, null, 100)).thenReturn(Mono.just(new MovieInfoPage(movieinfos, null)));
 
         // then
         webTestClient
@@ -53,10 +71,90 @@ class MoviesInfoControllerTest {
                 .exchange()
                 .expectStatus()
                 .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(MoviesInfoController.NEXT_CURSOR_HEADER)
                 .expectBodyList(MovieInfo.class)
                 .hasSize(3);
     }
 
+    @Test
+    void getAllMoviesInfo_page() {
+        // given
+        var movieinfos = List.of(
+                new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+
+        // when
+        when(moviesInfoService.getMoviesInfoPage(2012, "cursor1", 1))
+                .thenReturn(Mono.just(new MovieInfoPage(movieinfos, "cursor2")));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?year=2012&limit=1&after=cursor1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .valueEquals(MoviesInfoController.NEXT_CURSOR_HEADER, "cursor2")
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getAllMoviesInfo_limitIsCapped() {
+        // when
+        when(moviesInfoService.getMoviesInfoPage(null, null, 1000))
+                .thenReturn(Mono.just(new MovieInfoPage(List.of(), null)));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?limit=1000000")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful();
+    }
+
+    @Test
+    void getAllMoviesInfo_invalidCursor() {
+        // when
+        when(moviesInfoService.getMoviesInfoPage(2012, "bad", 100))
+                .thenThrow(new IllegalArgumentException("Cursor does not belong to year 2012"));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?year=2012&after=bad")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getMoviesInfoByIds() {
+        // given
+        var movieinfos = List.of(
+                new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")),
+                new MovieInfo("def", "The Dark Knight",
+                        2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18"))
+        );
+
+        // when
+        when(moviesInfoService.getMoviesInfoByIds(List.of("abc", "def"))).thenReturn(Flux.fromIterable(movieinfos));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?ids=abc,def")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2);
+    }
+
     @Test
     void getMovieInfosById() {
         // given
@@ -223,4 +321,303 @@ class MoviesInfoControllerTest {
                 .expectStatus()
                 .isNotFound();
     }
+
+    @Test
+    void getAllMoviesInfo_deadlineExceeded() {
+        // given
+        var cancelled = new AtomicBoolean();
+        when(moviesInfoService.getMoviesInfoPage(null, null, 100)).thenReturn(Mono.<MovieInfoPage>never()
+                .doOnCancel(() -> cancelled.set(true)));
+
+        // when
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL)
+                .header(DeadlineWebFilter.HEADER, "100")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+
+        // then
+        assertThat(cancelled).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void bulkAddMovieInfos() {
+        // given
+        var body = """
+                {"name":"Batman Begins","year":2005,"cast":["Christian Bale"]}
+                {"name":"The Dark Knight","year":2008,"cast":["HeathLedger"]}
+                """;
+
+        // when
+        when(movieInfoBulkService.ingest(any())).thenAnswer(invocation -> ((Flux<String>) invocation.getArgument(0))
+                .index()
+                .map(line -> new MovieInfoBulkResult(line.getT1() + 1, MovieInfoBulkResult.Status.INSERTED,
+                        "id" + line.getT1(), null)));
+
+        // then
+        webTestClient
+                .post()
+                .uri(MOVIES_INFO_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(MovieInfoBulkResult.class)
+                .hasSize(2)
+                .contains(new MovieInfoBulkResult(2, MovieInfoBulkResult.Status.INSERTED, "id1", null));
+    }
+
+    @Test
+    void patchMovieInfo() {
+        // given
+        var movieInfoId = "abc";
+        var patch = new MovieInfoPatch(null, null, null, List.of("Anne Hathaway"), null);
+        var patchedMovieInfo = new MovieInfo(movieInfoId, "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy", "Anne Hathaway"), LocalDate.parse("2012-07-20"));
+
+        // when
+        when(moviesInfoService.patchMovieInfo(patch, movieInfoId)).thenReturn(Mono.just(patchedMovieInfo));
+
+        // then
+        webTestClient
+                .patch()
+                .uri(MOVIES_INFO_URL + "/{id}", movieInfoId)
+                .bodyValue(patch)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.cast.length()").isEqualTo(3);
+    }
+
+    @Test
+    void patchMovieInfo_notFound() {
+        // given
+        var patch = new MovieInfoPatch(null, 2013, null, null, null);
+
+        // when
+        when(moviesInfoService.patchMovieInfo(patch, "def")).thenReturn(Mono.empty());
+
+        // then
+        webTestClient
+                .patch()
+                .uri(MOVIES_INFO_URL + "/{id}", "def")
+                .bodyValue(patch)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+    @Test
+    void patchMovieInfo_validation() {
+        // given
+        var patch = new MovieInfoPatch(" ", -2013, null, null, null);
+
+        // then
+        webTestClient
+                .patch()
+                .uri(MOVIES_INFO_URL + "/{id}", "abc")
+                .bodyValue(patch)
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("movieInfo.name must be present, movieInfo.year must be a positive value");
+    }
+
+    @Test
+    void getMovieInfosById_fields() {
+        // given
+        var movieInfoId = "abc";
+
+        // when
+        when(moviesInfoService.getAllMoviesInfoById(movieInfoId, Set.of("name", "year")))
+                .thenReturn(Mono.just(new MovieInfoProjection("abc", "Dark Knight Rises", 2012, null, null)));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/{id}?fields=name,year", movieInfoId)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Dark Knight Rises")
+                .jsonPath("$.year").isEqualTo(2012)
+                .jsonPath("$.cast").doesNotExist()
+                .jsonPath("$.releaseDate").doesNotExist();
+    }
+
+    @Test
+    void getMovieInfosById_unprojectedKeepsNullFields() {
+        // given
+        var movieInfoId = "abc";
+
+        // when
+        when(moviesInfoService.getAllMoviesInfoById(movieInfoId))
+                .thenReturn(Mono.just(new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale"), null)));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/{id}", movieInfoId)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .value(body -> assertThat(body).contains("\"releaseDate\":null"));
+    }
+
+    @Test
+    void getAllMoviesInfo_fields() {
+        // given
+        var page = new MovieInfoPage(List.of(new MovieInfoProjection("abc", "Dark Knight Rises", null, null, null)), "next");
+
+        // when
+        when(moviesInfoService.getMoviesInfoPage(2012, null, 100, Set.of("name"))).thenReturn(Mono.just(page));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?year=2012&fields=name")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().valueEquals(MoviesInfoController.NEXT_CURSOR_HEADER, "next")
+                .expectBody()
+                .jsonPath("$[0].movieInfoId").isEqualTo("abc")
+                .jsonPath("$[0].name").isEqualTo("Dark Knight Rises")
+                .jsonPath("$[0].year").doesNotExist();
+    }
+
+    @Test
+    void getAllMoviesInfo_unknownField() {
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?fields=name,budget")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void searchMovieInfos() {
+        // when
+        when(moviesInfoService.searchMoviesInfo("dark kni", 100)).thenReturn(Flux.just(
+                new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale", "Tom Hardy"), null)));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/search?q=dark kni&limit=500")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getCastFacet() {
+        // when
+        when(moviesInfoService.getCastFacet(1000)).thenReturn(Flux.just(
+                new FacetCount<>("Christian Bale", 3), new FacetCount<>("Tom Hardy", 1)));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/facets/cast?limit=5000")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$[0].value").isEqualTo("Christian Bale")
+                .jsonPath("$[0].count").isEqualTo(3)
+                .jsonPath("$.length()").isEqualTo(2);
+    }
+
+    @Test
+    void getReleaseDateFacet() {
+        // when
+        when(moviesInfoService.getReleaseDateFacet(ReleaseDateInterval.MONTH))
+                .thenReturn(Flux.just(new FacetCount<>("2012-07", 2)));
+
+        // then
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/facets/releaseDate?interval=month")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .isEqualTo("{\"value\":\"2012-07\",\"count\":2}\n");
+    }
+
+    @Test
+    void getReleaseDateFacet_unknownInterval() {
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/facets/releaseDate?interval=week")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getMovieInfosById_notModified() {
+        // given
+        when(moviesInfoService.getAllMoviesInfoById("abc")).thenReturn(Mono.just(new MovieInfo("abc", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"))));
+        var eTag = webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/{id}", "abc")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(MovieInfo.class)
+                .getResponseHeaders()
+                .getETag();
+
+        // then
+        assertThat(eTag).isNotNull();
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/{id}", "abc")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+    }
+
+    @Test
+    void getMovieInfosById_eTagFollowsContent() {
+        // given
+        when(moviesInfoService.getAllMoviesInfoById("abc"))
+                .thenReturn(Mono.just(new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale"), null)))
+                .thenReturn(Mono.just(new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale"), null)))
+                .thenReturn(Mono.just(new MovieInfo("abc", "Dark Knight Rises", 2013, List.of("Christian Bale"), null)));
+
+        // when
+        var eTags = IntStream.range(0, 3)
+                .mapToObj(i -> webTestClient.get()
+                        .uri(MOVIES_INFO_URL + "/{id}", "abc")
+                        .exchange()
+                        .returnResult(MovieInfo.class)
+                        .getResponseHeaders()
+                        .getETag())
+                .toList();
+
+        // then
+        assertEquals(eTags.get(0), eTags.get(1));
+        assertThat(eTags.get(2)).isNotEqualTo(eTags.get(0));
+    }
 }
@@ -0,0 +1,115 @@
+package com.gallegos.mic_moviesinfo.unit.search;
+
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChangeFeed;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import com.gallegos.mic_moviesinfo.search.MovieInfoSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Search latency over a synthetic catalog of one million titles, for queries made of whole words
+ * followed by the prefix being typed.
+ */
+@Slf4j
+class MovieInfoSearchIndexBenchmarkTest {
+
+    private static final int CATALOG_SIZE = 1_000_000;
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final int PEOPLE = 50_000;
+    private static final int WARMUP_QUERIES = 2_000;
+    private static final int QUERIES = 5_000;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ra", "shi", "to", "vu", "zen", "dar",
+            "kni", "bel", "mor", "tan", "gri", "fal", "qua", "wes", "yor", "hel"};
+
+    @Test
+    void search_staysUnderAFewMilliseconds() {
+        // given
+        var random = new Random(42);
+        var words = IntStream.range(0, VOCABULARY_SIZE).mapToObj(i -> word(random)).toArray(String[]::new);
+        var people = IntStream.range(0, PEOPLE)
+                .mapToObj(i -> capitalize(words[random.nextInt(VOCABULARY_SIZE)]) + " "
+                        + capitalize(words[random.nextInt(VOCABULARY_SIZE)]))
+                .toArray(String[]::new);
+        var names = new String[CATALOG_SIZE];
+        var movieInfos = Flux.range(0, CATALOG_SIZE)
+                .map(i -> {
+                    names[i] = IntStream.range(0, 1 + random.nextInt(4))
+                            .mapToObj(w -> capitalize(words[zipf(random, VOCABULARY_SIZE)]))
+                            .reduce((a, b) -> a + " " + b)
+                            .orElseThrow();
+                    var cast = List.of(people[random.nextInt(PEOPLE)], people[random.nextInt(PEOPLE)],
+                            people[random.nextInt(PEOPLE)]);
+                    return new MovieInfo(Integer.toString(i), names[i], 1950 + i % 75, cast, null);
+                });
+        var movieInfoRepository = mock(MovieInfoRepository.class);
+        when(movieInfoRepository.findAll()).thenReturn(movieInfos);
+        var changeFeed = mock(MovieInfoChangeFeed.class);
+        when(changeFeed.changes()).thenReturn(Flux.never());
+        var searchIndex = new MovieInfoSearchIndex(movieInfoRepository, changeFeed, true, Duration.ofMinutes(5));
+        var loadStart = System.nanoTime();
+        searchIndex.load().block();
+        log.info("Indexed {} titles in {} ms", searchIndex.size(), (System.nanoTime() - loadStart) / 1_000_000);
+
+        // when
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            searchIndex.search(query(random, names), 20);
+        }
+        var latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            var query = query(random, names);
+            var start = System.nanoTime();
+            searchIndex.search(query, 20);
+            latencies[i] = System.nanoTime() - start;
+        }
+
+        // then
+        Arrays.sort(latencies);
+        var p50 = latencies[QUERIES / 2] / 1_000;
+        var p99 = latencies[QUERIES * 99 / 100] / 1_000;
+        log.info("Search latency over {} titles: p50={} µs p99={} µs max={} µs",
+                CATALOG_SIZE, p50, p99, latencies[QUERIES - 1] / 1_000);
+        assertThat(p50).isLessThan(3_000);
+        assertThat(p99).isLessThan(10_000);
+    }
+
+    /**
+     * The whole words of a title followed by the first letters of its last word, as typed in a search box.
+     */
+    private static String query(Random random, String[] names) {
+        var words = names[random.nextInt(names.length)].split(" ");
+        var last = words[words.length - 1];
+        words[words.length - 1] = last.substring(0, Math.min(last.length(), 2 + random.nextInt(3)));
+        return String.join(" ", words);
+    }
+
+    private static String word(Random random) {
+        var word = new StringBuilder();
+        for (int i = 0; i < 2 + random.nextInt(3); i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    /**
+     * Skewed word frequencies, like a real catalog's "the", "man", "love"...
+     */
+    private static int zipf(Random random, int size) {
+        return (int) Math.min(size - 1, Math.floor(Math.pow(size, random.nextDouble())) - 1);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,125 @@
+package com.gallegos.mic_moviesinfo.unit.search;
+
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChange;
+import com.gallegos.mic_moviesinfo.changefeed.MovieInfoChangeFeed;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import com.gallegos.mic_moviesinfo.search.MovieInfoSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovieInfoSearchIndexTest {
+
+    private Sinks.Many<MovieInfoChange> changes;
+    private MovieInfoChangeFeed changeFeed;
+    private MovieInfoSearchIndex searchIndex;
+
+    @BeforeEach
+    void setup() {
+        var movieInfoRepository = mock(MovieInfoRepository.class);
+        when(movieInfoRepository.findAll()).thenReturn(Flux.just(
+                new MovieInfo("1", "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("2", "The Dark Knight",
+                        2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
+                new MovieInfo("3", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")),
+                new MovieInfo("4", "Amélie",
+                        2001, List.of("Audrey Tautou"), LocalDate.parse("2001-04-25"))));
+        changes = Sinks.many().multicast().directBestEffort();
+        changeFeed = mock(MovieInfoChangeFeed.class);
+        when(changeFeed.changes()).thenReturn(changes.asFlux());
+        searchIndex = new MovieInfoSearchIndex(movieInfoRepository, changeFeed, true, Duration.ofMinutes(5));
+        searchIndex.start();
+    }
+
+    @Test
+    void search_everyTermMustMatch() {
+        assertEquals(List.of("2", "3"), ids(searchIndex.search("dark knight", 10)));
+        assertEquals(List.of("3"), ids(searchIndex.search("knight hardy", 10)));
+        assertEquals(List.of(), ids(searchIndex.search("dark begins", 10)));
+    }
+
+    @Test
+    void search_prefixesAndAccents() {
+        assertEquals(List.of("2", "3"), ids(searchIndex.search("Dark Kni", 10)));
+        assertEquals(List.of("4"), ids(searchIndex.search("AMELIE", 10)));
+    }
+
+    @Test
+    void search_ranksNameBeforeCast() {
+        // given
+        searchIndex.index(new MovieInfo("5", "Bale", 2020, List.of("Someone Else"), null));
+
+        // then
+        assertEquals("5", searchIndex.search("bale", 10).getFirst().getMovieInfoId());
+        assertEquals(4, searchIndex.search("bale", 10).size());
+        assertEquals(2, searchIndex.search("bale", 2).size());
+    }
+
+    @Test
+    void search_followsChanges() {
+        // when
+        changes.tryEmitNext(new MovieInfoChange(MovieInfoChange.Type.UPDATE, "1",
+                new MovieInfo("1", "Batman Returns", 1992, List.of("Michael Keaton"), null), Set.of("name", "cast")));
+        changes.tryEmitNext(new MovieInfoChange(MovieInfoChange.Type.DELETE, "2", null, Set.of()));
+
+        // then
+        assertEquals(List.of("1"), ids(searchIndex.search("batman", 10)));
+        assertEquals(List.of(), ids(searchIndex.search("begins", 10)));
+        assertEquals(List.of("3"), ids(searchIndex.search("knight", 10)));
+        assertEquals(3, searchIndex.size());
+    }
+
+    @Test
+    void index_leftToTheChangeFeedWhenItRuns() {
+        // given
+        when(changeFeed.isEnabled()).thenReturn(true);
+        var movieInfo = new MovieInfo("5", "Batman Returns", 1992, List.of("Michael Keaton"), null);
+
+        // when
+        searchIndex.index(movieInfo);
+        var beforeFeed = ids(searchIndex.search("returns", 10));
+        changes.tryEmitNext(new MovieInfoChange(MovieInfoChange.Type.INSERT, "5", movieInfo, Set.of()));
+
+        // then
+        assertEquals(List.of(), beforeFeed);
+        assertEquals(List.of("5"), ids(searchIndex.search("returns", 10)));
+    }
+
+    @Test
+    void search_survivesCompaction() {
+        // when every document is replaced often enough for stale postings to outnumber live ones
+        for (var round : List.of("first", "second", "third")) {
+            for (int i = 0; i < 1_000; i++) {
+                searchIndex.index(new MovieInfo("m" + i, "Movie " + i + " " + round + " cut", 2000, List.of(), null));
+            }
+        }
+
+        // then only the latest version of each document is found
+        assertEquals(1_004, searchIndex.size());
+        assertEquals(1_000, searchIndex.search("third cut", 2_000).size());
+        assertEquals(List.of(), searchIndex.search("second cut", 10));
+        assertEquals(List.of("2", "3"), ids(searchIndex.search("dark knight", 10)));
+    }
+
+    @Test
+    void search_blankQuery() {
+        assertEquals(List.of(), searchIndex.search(" - ", 10));
+    }
+
+    private static List<String> ids(List<MovieInfo> movieInfos) {
+        return movieInfos.stream().map(MovieInfo::getMovieInfoId).toList();
+    }
+}
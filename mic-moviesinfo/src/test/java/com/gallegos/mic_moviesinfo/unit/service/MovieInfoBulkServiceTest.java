@@ -0,0 +1,124 @@
+package com.gallegos.mic_moviesinfo.unit.service;
+
+import com.gallegos.mic_moviesinfo.cache.MovieInfoCache;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoBulkResult.Status;
+import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import com.gallegos.mic_moviesinfo.search.MovieInfoSearchIndex;
+import com.gallegos.mic_moviesinfo.service.MovieInfoBulkService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieInfoBulkServiceTest {
+
+    private MovieInfoRepository movieInfoRepository;
+    private MovieInfoBulkService movieInfoBulkService;
+
+    @BeforeEach
+    void setup() {
+        movieInfoRepository = mock(MovieInfoRepository.class);
+        movieInfoBulkService = new MovieInfoBulkService(movieInfoRepository,
+                mock(MovieInfoCache.class), mock(MovieInfoSearchIndex.class),
+                JsonMapper.builder().build(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2);
+    }
+
+    @Test
+    void ingest() {
+        // given
+        var lines = Flux.just(
+                "{\"name\":\"Batman Begins\",\"year\":2005,\"cast\":[\"Christian Bale\"]}",
+                "{\"movieInfoId\":\"abc\",\"name\":\"Dark Knight Rises\",\"year\":2012,\"cast\":[\"Tom Hardy\"]}",
+                "{not json",
+                "",
+                "{\"name\":\"\",\"year\":-1,\"cast\":[\"Christian Bale\"]}",
+                "{\"name\":\"The Dark Knight\",\"year\":2008,\"cast\":[\"HeathLedger\"]}");
+
+        // when
+        when(movieInfoRepository.bulkInsertOrReplace(any(), any()))
+                .thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+
+        // then
+        StepVerifier.create(movieInfoBulkService.ingest(lines))
+                .assertNext(result -> {
+                    assertEquals(1, result.line());
+                    assertEquals(Status.INSERTED, result.status());
+                    assertThat(result.movieInfoId()).isNotBlank();
+                })
+                .assertNext(result -> {
+                    assertEquals(2, result.line());
+                    assertEquals(Status.UPSERTED, result.status());
+                    assertEquals("abc", result.movieInfoId());
+                })
+                .assertNext(result -> {
+                    assertEquals(3, result.line());
+                    assertEquals(Status.INVALID, result.status());
+                    assertThat(result.error()).startsWith("Malformed JSON");
+                })
+                .assertNext(result -> {
+                    assertEquals(5, result.line());
+                    assertEquals(Status.INVALID, result.status());
+                    assertEquals("movieInfo.name must be present, movieInfo.year must be a positive value", result.error());
+                })
+                .assertNext(result -> {
+                    assertEquals(6, result.line());
+                    assertEquals(Status.INSERTED, result.status());
+                })
+                .verifyComplete();
+
+        // batches of two parsed lines; the batch holding only invalid lines is not written
+        verify(movieInfoRepository, times(2)).bulkInsertOrReplace(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void ingest_writeErrorFailsOnlyItsLine() {
+        // given
+        var lines = Flux.just(
+                "{\"name\":\"Batman Begins\",\"year\":2005,\"cast\":[\"Christian Bale\"]}",
+                "{\"movieInfoId\":\"abc\",\"name\":\"Dark Knight Rises\",\"year\":2012,\"cast\":[\"Tom Hardy\"]}");
+        var writeError = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1);
+
+        // when
+        when(movieInfoRepository.bulkInsertOrReplace(any(), any()))
+                .thenReturn(Mono.error(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                        List.of(writeError), null, new ServerAddress(), Set.of())));
+
+        // then
+        StepVerifier.create(movieInfoBulkService.ingest(lines))
+                .assertNext(result -> assertEquals(Status.INSERTED, result.status()))
+                .assertNext(result -> {
+                    assertEquals(Status.FAILED, result.status());
+                    assertEquals("E11000 duplicate key", result.error());
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<List<MovieInfo>> toInsert = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<MovieInfo>> toReplace = ArgumentCaptor.forClass(List.class);
+        verify(movieInfoRepository).bulkInsertOrReplace(toInsert.capture(), toReplace.capture());
+        assertEquals("Batman Begins", toInsert.getValue().getFirst().getName());
+        assertEquals("abc", toReplace.getValue().getFirst().getMovieInfoId());
+    }
+}
@@ -0,0 +1,146 @@
+package com.gallegos.mic_moviesinfo.unit.service;
+
+import com.gallegos.mic_moviesinfo.cache.MovieInfoCache;
+import com.gallegos.mic_moviesinfo.cache.MovieInfoFacetCache;
+import com.gallegos.mic_moviesinfo.domain.FacetCount;
+import com.gallegos.mic_moviesinfo.domain.MovieInfo;
+import com.gallegos.mic_moviesinfo.domain.MovieInfoPatch;
+import com.gallegos.mic_moviesinfo.repository.MovieInfoRepository;
+import com.gallegos.mic_moviesinfo.search.MovieInfoSearchIndex;
+import com.gallegos.mic_moviesinfo.service.MoviesInfoService;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MoviesInfoServiceTest {
+
+    private static final MovieInfo MOVIE_INFO = new MovieInfo("abc", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+
+    private MovieInfoRepository movieInfoRepository;
+    private MoviesInfoService moviesInfoService;
+
+    @BeforeEach
+    void setup() {
+        movieInfoRepository = mock(MovieInfoRepository.class);
+        moviesInfoService = new MoviesInfoService(movieInfoRepository, mock(MovieInfoCache.class), mock(MovieInfoSearchIndex.class),
+                new MovieInfoFacetCache(true, Duration.ofMinutes(1)));
+        when(movieInfoRepository.updateById(eq("abc"), any())).thenReturn(Mono.just(MOVIE_INFO));
+    }
+
+    @Test
+    void patchMovieInfo_setsOnlyPresentFields() {
+        // given
+        var patch = new MovieInfoPatch(null, 2013, null, List.of("Anne Hathaway"), null);
+
+        // when
+        StepVerifier.create(moviesInfoService.patchMovieInfo(patch, "abc"))
+                .expectNext(MOVIE_INFO)
+                .verifyComplete();
+
+        // then
+        var update = capturedUpdate();
+        assertEquals(new Document("year", 2013), update.get("$set"));
+        assertThat(update.get("$push", Document.class).get("cast").toString()).contains("$each", "Anne Hathaway");
+    }
+
+    @Test
+    void patchMovieInfo_replacedCastAbsorbsAdditions() {
+        // given
+        var patch = new MovieInfoPatch(null, null, List.of("Christian Bale"), List.of("Anne Hathaway"), null);
+
+        // when
+        moviesInfoService.patchMovieInfo(patch, "abc").block();
+
+        // then
+        var update = capturedUpdate();
+        assertEquals(new Document("cast", List.of("Christian Bale", "Anne Hathaway")), update.get("$set"));
+        assertEquals(null, update.get("$push"));
+    }
+
+    @Test
+    void patchMovieInfo_emptyPatchReadsOnly() {
+        // given
+        when(movieInfoRepository.findById("abc")).thenReturn(Mono.just(MOVIE_INFO));
+
+        // when
+        StepVerifier.create(moviesInfoService.patchMovieInfo(new MovieInfoPatch(), "abc"))
+                .expectNext(MOVIE_INFO)
+                .verifyComplete();
+
+        // then
+        verify(movieInfoRepository, never()).updateById(any(), any());
+    }
+
+    @Test
+    void updateMovieInfo_replacesAllFieldsInOneUpdate() {
+        // when
+        moviesInfoService.updateMovieInfo(MOVIE_INFO, "abc").block();
+
+        // then
+        var set = (Document) capturedUpdate().get("$set");
+        assertEquals(List.of("cast", "name", "year", "releaseDate"), List.copyOf(set.keySet()));
+        verify(movieInfoRepository, never()).save(any());
+    }
+
+    @Test
+    void getMoviesInfoPage_fieldsArePushedDown() {
+        // given
+        var query = ArgumentCaptor.forClass(Query.class);
+        when(movieInfoRepository.findProjected(query.capture(), eq(Set.of("name"))))
+                .thenReturn(Flux.just(new MovieInfo("abc", "Dark Knight Rises", null, null, null),
+                        new MovieInfo("def", "Batman Begins", null, null, null)));
+
+        // when
+        var page = moviesInfoService.getMoviesInfoPage(2012, null, 1, Set.of("name")).block();
+
+        // then
+        assertEquals(1, page.movieInfos().size());
+        assertThat(page.nextCursor()).isNotNull();
+        assertEquals(new Document("year", 2012), query.getValue().getQueryObject());
+        assertEquals(new Document("year", 1).append("movieInfoId", 1), query.getValue().getSortObject());
+        assertEquals(2, query.getValue().getLimit());
+    }
+
+    @Test
+    void getCastFacet_repeatedReadsAggregateOnce() {
+        // given
+        when(movieInfoRepository.countByCast(10)).thenReturn(Flux.just(new FacetCount<>("Christian Bale", 3)));
+
+        // when
+        moviesInfoService.getCastFacet(10).blockLast();
+        StepVerifier.create(moviesInfoService.getCastFacet(10))
+                .expectNext(new FacetCount<>("Christian Bale", 3))
+                .verifyComplete();
+
+        // then
+        verify(movieInfoRepository, times(1)).countByCast(10);
+    }
+
+    private Document capturedUpdate() {
+        var update = ArgumentCaptor.forClass(Update.class);
+        verify(movieInfoRepository).updateById(eq("abc"), update.capture());
+        return update.getValue().getUpdateObject();
+    }
+}
@@ -0,0 +1,75 @@
+package com.gallegos.cache;
+
+import com.gallegos.domain.ReviewStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hot, in-process copy of the most read {@link ReviewStats}.
+ * <p>
+ * A fixed array of slots indexed by a hash of the movie id: a lookup is one array read and a
+ * comparison of primitive longs, with no boxing, no locking and no allocation; a movie takes over
+ * the slot of another one hashing to the same place. Slots hold the stats returned by this
+ * instance's writes, which are never replaced by older versions, and expire after
+ * {@code reviews.stats.cache.ttl}, which bounds how stale writes through other instances leave them.
+ */
+@Component
+public class ReviewStatsCache {
+
+    private record Entry(long movieInfoId, ReviewStats stats, long expiresAt) {
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final long ttlNanos;
+
+    public ReviewStatsCache(@Value("${reviews.stats.cache.size:4096}") int size,
+                            @Value("${reviews.stats.cache.ttl:5s}") Duration ttl) {
+        var capacity = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * @return the cached stats of the movie, or null
+     */
+    public ReviewStats get(long movieInfoId) {
+        var entry = slots.get(slot(movieInfoId));
+        if (entry == null || entry.movieInfoId() != movieInfoId || entry.expiresAt() - System.nanoTime() < 0) {
+            return null;
+        }
+        return entry.stats();
+    }
+
+    public void put(ReviewStats stats) {
+        long movieInfoId = stats.getMovieInfoId();
+        var slot = slot(movieInfoId);
+        var entry = new Entry(movieInfoId, stats, System.nanoTime() + ttlNanos);
+        while (true) {
+            var current = slots.get(slot);
+            if (current != null && current.movieInfoId() == movieInfoId
+                    && current.stats().getVersion() > stats.getVersion()) {
+                return;
+            }
+            if (slots.compareAndSet(slot, current, entry)) {
+                return;
+            }
+        }
+    }
+
+    public void evict(long movieInfoId) {
+        var slot = slot(movieInfoId);
+        var current = slots.get(slot);
+        if (current != null && current.movieInfoId() == movieInfoId) {
+            slots.compareAndSet(slot, current, null);
+        }
+    }
+
+    private int slot(long movieInfoId) {
+        return (int) ((movieInfoId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
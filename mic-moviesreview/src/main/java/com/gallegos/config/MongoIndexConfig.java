@@ -0,0 +1,41 @@
+package com.gallegos.config;
+
+import com.gallegos.domain.Review;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import reactor.core.publisher.Flux;
+
+/**
+ * Creates the indexes declared on the documents ({@code @Indexed}, {@code @CompoundIndex}) once the
+ * context is up. Creating an index that already exists is a no-op, so this is safe on every start.
+ * <p>
+ * The {@code (movieInfoId, _id)} and {@code (movieInfoId, rating, _id)} indexes back the pages of
+ * reviews of one or several movies, newest or best rated first, and their {@code movieInfoId}
+ * prefix the other lookups by movie; the rating index also yields the min and max rating of a
+ * movie when its stats are recomputed. {@code (rating, _id)} backs the unfiltered best rated pages.
+ * Review stats are only looked up by their id, the movie's, so they need no index of their own.
+ */
+@Configuration
+@Slf4j
+public class MongoIndexConfig {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public MongoIndexConfig(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void createIndexes() {
+        var resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        var indexOperations = mongoTemplate.indexOps(Review.class);
+        Flux.fromIterable(resolver.resolveIndexFor(Review.class))
+                .concatMap(indexOperations::createIndex)
+                .doOnNext(index -> log.info("Ensured index {} on Review", index))
+                .blockLast();
+    }
+}
@@ -6,12 +6,19 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "movieInfoId_id", def = "{'movieInfoId': 1, '_id': -1}"),
+        @CompoundIndex(name = "movieInfoId_rating_id", def = "{'movieInfoId': 1, 'rating': -1, '_id': -1}"),
+        @CompoundIndex(name = "rating_id", def = "{'rating': -1, '_id': -1}")
+})
 public class Review {
 
     @Id
@@ -0,0 +1,17 @@
+package com.gallegos.domain;
+
+/**
+ * Outcome of one line of a bulk NDJSON ingest. {@code line} is 1-based; {@code error} is only set
+ * for rejected or failed lines.
+ */
+public record ReviewBulkResult(long line, Status status, String reviewId, String error) {
+
+    public enum Status {
+        /** Inserted with a newly generated id. */
+        INSERTED,
+        /** Not valid JSON or failed the {@link Review} constraints; nothing was written. */
+        INVALID,
+        /** Valid, but the write was rejected by Mongo. */
+        FAILED
+    }
+}
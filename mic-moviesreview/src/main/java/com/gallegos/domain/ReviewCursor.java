@@ -0,0 +1,39 @@
+package com.gallegos.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a review listing: the sort keys of the last review of a page. Clients get it as an
+ * opaque string, in URL-safe Base64, and pass it back to read the next page.
+ *
+ * @param rating the rating of the last review, only used by {@link ReviewSort#RATING}
+ */
+public record ReviewCursor(ReviewSort sort, Double rating, String reviewId) {
+
+    public static ReviewCursor after(Review last, ReviewSort sort) {
+        return new ReviewCursor(sort, sort == ReviewSort.RATING ? last.getRating() : null, last.getReviewId());
+    }
+
+    public String encode() {
+        var key = sort == ReviewSort.RATING
+                ? sort + ":" + (rating == null ? "" : rating) + ":" + reviewId
+                : sort + ":" + reviewId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another sort
+     */
+    public static ReviewCursor decode(String cursor, ReviewSort sort) {
+        var key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        var parts = key.split(":", -1);
+        if (!parts[0].equals(sort.name()) || parts.length != (sort == ReviewSort.RATING ? 3 : 2)) {
+            throw new IllegalArgumentException("Cursor does not belong to sort " + sort);
+        }
+        if (sort == ReviewSort.RATING) {
+            return new ReviewCursor(sort, parts[1].isEmpty() ? null : Double.valueOf(parts[1]), parts[2]);
+        }
+        return new ReviewCursor(sort, null, parts[1]);
+    }
+}
@@ -0,0 +1,17 @@
+package com.gallegos.domain;
+
+/**
+ * Orders of a review listing. Both end with the review id, newest first, which makes them total.
+ */
+public enum ReviewSort {
+
+    /**
+     * Newest reviews first: generated ids grow with their creation time.
+     */
+    NEWEST,
+
+    /**
+     * Highest rating first, unrated reviews last.
+     */
+    RATING
+}
@@ -0,0 +1,53 @@
+package com.gallegos.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rating aggregates of the reviews of one movie, kept up to date as reviews are written. Reviews
+ * without a rating are not counted.
+ * <p>
+ * {@code histogram} counts the ratings by their integer part ({@code "8"} holds ratings from 8
+ * included to 9 excluded). {@code version} increases with every write of the document.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document
+public class ReviewStats {
+
+    @Id
+    private Long movieInfoId;
+
+    private long count;
+
+    private double sum;
+
+    private Double min;
+
+    private Double max;
+
+    private Map<String, Long> histogram = new HashMap<>();
+
+    @JsonIgnore
+    private long version;
+
+    public static ReviewStats empty(long movieInfoId) {
+        return new ReviewStats(movieInfoId, 0, 0, null, null, new HashMap<>(), 0);
+    }
+
+    public static String bucketOf(double rating) {
+        return Long.toString((long) Math.floor(rating));
+    }
+
+    public Double getMean() {
+        return count == 0 ? null : sum / count;
+    }
+}
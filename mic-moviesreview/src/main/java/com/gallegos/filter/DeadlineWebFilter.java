@@ -0,0 +1,52 @@
+package com.gallegos.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Answers 504 once the budget mic-moviesservice sends in {@value #HEADER}, in milliseconds, runs
+ * out. Requests without the header are not bounded. Kept in step with the copy in mic-moviesinfo.
+ */
+@Component
+@Slf4j
+public class DeadlineWebFilter implements WebFilter {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var header = exchange.getRequest().getHeaders().getFirst(HEADER);
+        if (header == null) {
+            return chain.filter(exchange);
+        }
+        Duration budget;
+        try {
+            budget = Duration.ofMillis(Long.parseLong(header.trim()));
+        } catch (NumberFormatException ex) {
+            return chain.filter(exchange);
+        }
+        if (budget.isNegative() || budget.isZero()) {
+            return gatewayTimeout(exchange);
+        }
+
+        return chain.filter(exchange)
+                .timeout(budget)
+                .onErrorResume(TimeoutException.class, ex -> {
+                    log.warn("Request {} exceeded its {}ms deadline", exchange.getRequest().getPath(), budget.toMillis());
+                    return exchange.getResponse().isCommitted() ? Mono.error(ex) : gatewayTimeout(exchange);
+                });
+    }
+
+    private static Mono<Void> gatewayTimeout(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+        return exchange.getResponse().setComplete();
+    }
+}
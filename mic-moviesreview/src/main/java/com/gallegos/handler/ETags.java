@@ -0,0 +1,53 @@
+package com.gallegos.handler;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Strong ETags hashed from the fields of a representation. Kept in step with the copy in mic-moviesinfo.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * @param values the fields of the representation; collections are hashed element by element
+     * @return a quoted ETag
+     */
+    public static String of(Object... values) {
+        var digest = sha256();
+        update(digest, Arrays.asList(values));
+        var hash = Arrays.copyOf(digest.digest(), 16);
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+    }
+
+    // every value is tagged and length-prefixed, so different field splits never hash alike
+    private static void update(MessageDigest digest, Object value) {
+        if (value == null) {
+            digest.update((byte) 0);
+        } else if (value instanceof Collection<?> values) {
+            digest.update((byte) 1);
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(values.size()).array());
+            values.forEach(element -> update(digest, element));
+        } else {
+            var bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) 2);
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package com.gallegos.handler;
 
 import com.gallegos.domain.Review;
+import com.gallegos.domain.ReviewBulkResult;
+import com.gallegos.domain.ReviewCursor;
+import com.gallegos.domain.ReviewSort;
 import com.gallegos.exception.ReviewDataException;
+import com.gallegos.exception.ReviewNotFoundException;
 import com.gallegos.repository.ReviewReactiveRepository;
+import com.gallegos.service.ReviewBulkService;
+import com.gallegos.service.ReviewStatsService;
+import com.gallegos.service.ReviewWriteBehindService;
 import jakarta.validation.ConstraintViolation;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
@@ -16,6 +25,9 @@ import reactor.core.publisher.Mono;
 
 import jakarta.validation.Validator;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 
@@ -24,60 +36,177 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ReviewHandler {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private Validator validator;
 
     private ReviewReactiveRepository reviewReactiveRepository;
 
+    private ReviewStatsService reviewStatsService;
+
+    private ReviewBulkService reviewBulkService;
+
+    private ReviewWriteBehindService reviewWriteBehindService;
+
+    /**
+     * Creates a review. In write-behind mode the review is only queued for a later write and the
+     * request is answered 202 with the review and its id.
+     */
     public Mono<ServerResponse> addReview(ServerRequest request) {
+        if (reviewWriteBehindService.isEnabled()) {
+            return request.bodyToMono(Review.class)
+                    .doOnNext(this::validate)
+                    .flatMap(reviewWriteBehindService::submit)
+                    .flatMap(ServerResponse.status(HttpStatus.ACCEPTED)::bodyValue);
+        }
         return request.bodyToMono(Review.class)
                 .doOnNext(this::validate)
                 .flatMap(reviewReactiveRepository::save)
+                .flatMap(savedReview -> reviewStatsService.ratingAdded(savedReview.getMovieInfoId(), savedReview.getRating())
+                        .thenReturn(savedReview))
                 .flatMap(ServerResponse.status(HttpStatus.CREATED)::bodyValue);
     }
 
-    public Mono<ServerResponse> getReviews(ServerRequest request) {
+    /**
+     * Bulk ingest: one {@link Review} per NDJSON line in, one {@link ReviewBulkResult} per line out.
+     */
+    public Mono<ServerResponse> bulkAddReviews(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(reviewBulkService.ingest(request.bodyToFlux(String.class)), ReviewBulkResult.class);
+    }
 
-        var movieInfoId = request.queryParam("movieInfoId");
-        if(movieInfoId.isPresent()) {
-            var reviewsFlux = reviewReactiveRepository.findReviewsByMovieInfoId(Long.valueOf(movieInfoId.get()));
-            return buildReviewsResponse(reviewsFlux);
-        } else {
-            var reviewsFlux = reviewReactiveRepository.findAll();
-            return buildReviewsResponse(reviewsFlux);
-        }
+    /**
+     * Rating aggregates of the reviews of one movie, read in constant time whatever their number.
+     */
+    public Mono<ServerResponse> getReviewStats(ServerRequest request) {
+        var movieInfoId = request.queryParam("movieInfoId")
+                .orElseThrow(() -> new ReviewDataException("movieInfoId : must be present"));
+        return reviewStatsService.getStats(parseNumber(movieInfoId, "movieInfoId"))
+                .flatMap(ServerResponse.ok()::bodyValue);
+    }
+
+    /**
+     * Lists reviews page by page, for one {@code movieInfoId}, several {@code movieInfoIds} or all
+     * movies: at most {@code limit} reviews, sorted {@code newest} (the default) or by {@code rating},
+     * starting after the {@code after} cursor. When more reviews follow, the cursor of the next
+     * page is returned in the {@value #NEXT_CURSOR_HEADER} header. No call returns more than
+     * {@value #MAX_PAGE_SIZE} reviews.
+     */
+    public Mono<ServerResponse> getReviews(ServerRequest request) {
+        var sort = request.queryParam("sort")
+                .map(ReviewHandler::parseSort)
+                .orElse(ReviewSort.NEWEST);
+        var limit = request.queryParam("limit")
+                .map(value -> Math.clamp(parseNumber(value, "limit"), 1, MAX_PAGE_SIZE))
+                .orElse(DEFAULT_PAGE_SIZE);
+        var after = request.queryParam("after")
+                .map(cursor -> decodeCursor(cursor, sort))
+                .orElse(null);
+        var movieInfoIds = request.queryParam("movieInfoIds")
+                .map(ids -> Arrays.stream(ids.split(","))
+                        .map(String::trim)
+                        .filter(id -> !id.isEmpty())
+                        .map(id -> parseNumber(id, "movieInfoIds"))
+                        .toList())
+                .or(() -> request.queryParam("movieInfoId").map(id -> List.of(parseNumber(id, "movieInfoId"))))
+                .orElse(null);
+
+        // one extra review tells whether there is a next page
+        return reviewReactiveRepository.findPage(movieInfoIds, sort, after, limit + 1)
+                .collectList()
+                .flatMap(page -> {
+                    var reviews = page.size() <= limit ? page : page.subList(0, limit);
+                    var response = ServerResponse.ok();
+                    if (page.size() > limit) {
+                        response.header(NEXT_CURSOR_HEADER, ReviewCursor.after(reviews.getLast(), sort).encode());
+                    }
+                    if (isStreaming(request)) {
+                        return response.body(Flux.fromIterable(reviews), Review.class);
+                    }
+                    return response.eTag(eTag(reviews))
+                            .bodyValue(reviews);
+                });
     }
 
+    /**
+     * Sets the comment and rating of a review in one atomic findAndModify, which returns the
+     * previous document: its rating feeds the stats, and the response is built from it without
+     * reading the review again.
+     */
     public Mono<ServerResponse> updateReview(ServerRequest request) {
         var reviewId = request.pathVariable("id");
-        var existingReview = reviewReactiveRepository.findById(reviewId)
-                .switchIfEmpty(Mono.error(new ReviewDataException("Review with id " + reviewId + " not found")));
-
-        return existingReview
-                .flatMap(review -> request.bodyToMono(Review.class)
-                    .map(reqReview -> {
-                        review.setComment(reqReview.getComment());
-                        review.setRating(reqReview.getRating());
-                        return review;
-                    })
-                        .flatMap(reviewReactiveRepository::save)
-                        .flatMap(savedReview -> ServerResponse.ok().bodyValue(savedReview))
-                )
+
+        return request.bodyToMono(Review.class)
+                .flatMap(reqReview -> reviewReactiveRepository.updateById(reviewId, new Update()
+                                .set("comment", reqReview.getComment())
+                                .set("rating", reqReview.getRating()))
+                        .switchIfEmpty(Mono.error(new ReviewNotFoundException("Review with id " + reviewId + " not found")))
+                        .flatMap(previousReview -> {
+                            var oldRating = previousReview.getRating();
+                            previousReview.setComment(reqReview.getComment());
+                            previousReview.setRating(reqReview.getRating());
+                            return reviewStatsService.ratingChanged(previousReview.getMovieInfoId(), oldRating, reqReview.getRating())
+                                    .thenReturn(previousReview);
+                        }))
+                .flatMap(updatedReview -> ServerResponse.ok().bodyValue(updatedReview))
                 .switchIfEmpty(ServerResponse.notFound().build());
     }
 
+    /**
+     * Deletes a review in one atomic findAndRemove, which returns the deleted document for the stats.
+     */
     public Mono<ServerResponse> deleteReview(ServerRequest request) {
         var reviewId = request.pathVariable("id");
 
-        return reviewReactiveRepository.findById(reviewId)
-                .flatMap(review ->
-                        reviewReactiveRepository.deleteById(reviewId)
+        return reviewReactiveRepository.removeById(reviewId)
+                .flatMap(review -> reviewStatsService.ratingRemoved(review.getMovieInfoId(), review.getRating())
                         .then(ServerResponse.noContent().build()))
                 .switchIfEmpty(ServerResponse.notFound().build());
     }
 
-    private static Mono<ServerResponse> buildReviewsResponse(Flux<Review> reviewsFlux) {
-        return ServerResponse.ok().body(reviewsFlux, Review.class);
+    /**
+     * Streaming clients get the page as a stream; the others get it as a list tagged with an ETag
+     * hashed from it, and a 304 without body when their {@code If-None-Match} matches.
+     */
+    private static boolean isStreaming(ServerRequest request) {
+        return request.headers().accept().stream()
+                .anyMatch(mediaType -> mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON)
+                        || mediaType.equalsTypeAndSubtype(MediaType.TEXT_EVENT_STREAM));
+    }
+
+    private static String eTag(List<Review> reviews) {
+        return ETags.of(reviews.stream()
+                .map(review -> Arrays.asList(review.getReviewId(), review.getMovieInfoId(),
+                        review.getComment(), review.getRating()))
+                .toList());
+    }
+
+    private static ReviewSort parseSort(String sort) {
+        try {
+            return ReviewSort.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ReviewDataException("sort : must be newest or rating");
+        }
+    }
+
+    private static ReviewCursor decodeCursor(String cursor, ReviewSort sort) {
+        try {
+            return ReviewCursor.decode(cursor, sort);
+        } catch (IllegalArgumentException ex) {
+            throw new ReviewDataException("after : invalid cursor " + cursor);
+        }
+    }
+
+    private static long parseNumber(String value, String name) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new ReviewDataException(name + " : must be a number");
+        }
     }
 
     private void validate(Review review) {
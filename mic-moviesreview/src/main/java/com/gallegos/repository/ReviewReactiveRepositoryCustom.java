@@ -0,0 +1,45 @@
+package com.gallegos.repository;
+
+import com.gallegos.domain.Review;
+import com.gallegos.domain.ReviewCursor;
+import com.gallegos.domain.ReviewSort;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReviewReactiveRepositoryCustom {
+
+    /**
+     * Reads at most {@code limit} reviews in {@code sort} order, starting right after {@code after}.
+     * Each call is one range scan of an index matching the filter and the sort, whose cost does not
+     * depend on how deep the page is.
+     *
+     * @param movieInfoIds the movies whose reviews are listed, or null for all reviews
+     * @param after        the position to start after, or null for the first page
+     */
+    Flux<Review> findPage(Collection<Long> movieInfoIds, ReviewSort sort, ReviewCursor after, int limit);
+
+    /**
+     * Inserts all reviews in one unordered bulk operation: a review that cannot be inserted does
+     * not prevent the others. Write errors are indexed over {@code reviews}.
+     */
+    Mono<BulkWriteResult> bulkInsert(List<Review> reviews);
+
+    /**
+     * Applies {@code update} to the review with the given id in one atomic findAndModify.
+     *
+     * @return the review as it was before the update, or empty when no review has this id
+     */
+    Mono<Review> updateById(String id, Update update);
+
+    /**
+     * Deletes the review with the given id in one atomic findAndRemove.
+     *
+     * @return the deleted review, or empty when no review has this id
+     */
+    Mono<Review> removeById(String id);
+}
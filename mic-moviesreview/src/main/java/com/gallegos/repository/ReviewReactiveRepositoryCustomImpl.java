@@ -0,0 +1,79 @@
+package com.gallegos.repository;
+
+import com.gallegos.domain.Review;
+import com.gallegos.domain.ReviewCursor;
+import com.gallegos.domain.ReviewSort;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+class ReviewReactiveRepositoryCustomImpl implements ReviewReactiveRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    ReviewReactiveRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<Review> findPage(Collection<Long> movieInfoIds, ReviewSort sort, ReviewCursor after, int limit) {
+        var query = new Query()
+                .with(sort == ReviewSort.RATING
+                        ? Sort.by(Sort.Direction.DESC, "rating", "reviewId")
+                        : Sort.by(Sort.Direction.DESC, "reviewId"))
+                .limit(limit);
+        if (movieInfoIds != null) {
+            query.addCriteria(where("movieInfoId").in(movieInfoIds));
+        }
+        if (after != null) {
+            query.addCriteria(sort == ReviewSort.RATING ? afterRating(after) : where("reviewId").lt(after.reviewId()));
+        }
+        return mongoTemplate.find(query, Review.class);
+    }
+
+    @Override
+    public Mono<BulkWriteResult> bulkInsert(List<Review> reviews) {
+        return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class)
+                .insert(reviews)
+                .execute();
+    }
+
+    @Override
+    public Mono<Review> updateById(String id, Update update) {
+        // the previous document carries the old rating the stats need
+        return mongoTemplate.findAndModify(query(where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(false), Review.class);
+    }
+
+    @Override
+    public Mono<Review> removeById(String id) {
+        return mongoTemplate.findAndRemove(query(where("_id").is(id)), Review.class);
+    }
+
+    /**
+     * Unrated reviews come last in a descending sort on the rating, and a range on the rating never
+     * matches them, so they are added explicitly after a rated cursor.
+     */
+    private static Criteria afterRating(ReviewCursor after) {
+        if (after.rating() == null) {
+            return new Criteria().andOperator(where("rating").is(null), where("reviewId").lt(after.reviewId()));
+        }
+        return new Criteria().orOperator(
+                where("rating").lt(after.rating()),
+                where("rating").is(null),
+                new Criteria().andOperator(where("rating").is(after.rating()), where("reviewId").lt(after.reviewId())));
+    }
+}
@@ -0,0 +1,7 @@
+package com.gallegos.repository;
+
+import com.gallegos.domain.ReviewStats;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReviewStatsRepository extends ReactiveMongoRepository<ReviewStats, Long>, ReviewStatsRepositoryCustom {
+}
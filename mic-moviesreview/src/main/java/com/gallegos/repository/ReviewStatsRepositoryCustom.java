@@ -0,0 +1,51 @@
+package com.gallegos.repository;
+
+import com.gallegos.domain.ReviewStats;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Every method applies its change in one atomic findAndModify and returns the stats as they are
+ * after it. Adding ratings creates the stats of the movie if there are none yet; removing or
+ * replacing one leaves missing stats missing and returns empty, since there is nothing to adjust.
+ */
+public interface ReviewStatsRepositoryCustom {
+
+    /**
+     * Counts a new rating.
+     */
+    Mono<ReviewStats> addRating(long movieInfoId, double rating);
+
+    /**
+     * Counts several new ratings at once.
+     */
+    Mono<ReviewStats> addRatings(long movieInfoId, Collection<Double> ratings);
+
+    /**
+     * Uncounts a removed rating. {@code min} and {@code max} are left as they are, so they must be
+     * {@linkplain #recompute(long) recomputed} when the rating was one of them.
+     */
+    Mono<ReviewStats> removeRating(long movieInfoId, double rating);
+
+    /**
+     * Replaces a counted rating with another one; same caveat as {@link #removeRating(long, double)}
+     * for the old rating.
+     */
+    Mono<ReviewStats> replaceRating(long movieInfoId, double oldRating, double newRating);
+
+    /**
+     * Recomputes {@code min} and {@code max} from the lowest and highest rating of the movie's reviews.
+     * The other aggregates are only ever adjusted, and the bounds are only written if no other write
+     * went through while they were read, so concurrent changes are not overwritten. Missing stats
+     * are {@linkplain #rebuild(long) rebuilt}.
+     */
+    Mono<ReviewStats> recompute(long movieInfoId);
+
+    /**
+     * Counts all the ratings of the movie again and writes the result, unless the stats changed
+     * while counting, in which case it counts again. Reads every review of the movie, so it is
+     * meant for repairs: stats that are missing, or that an adjustment may have left off.
+     */
+    Mono<ReviewStats> rebuild(long movieInfoId);
+}
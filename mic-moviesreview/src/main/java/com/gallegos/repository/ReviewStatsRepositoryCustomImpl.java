@@ -0,0 +1,154 @@
+package com.gallegos.repository;
+
+import com.gallegos.domain.Review;
+import com.gallegos.domain.ReviewStats;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+class ReviewStatsRepositoryCustomImpl implements ReviewStatsRepositoryCustom {
+
+    private static final int GUARDED_WRITE_ATTEMPTS = 3;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    ReviewStatsRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<ReviewStats> addRating(long movieInfoId, double rating) {
+        return addRatings(movieInfoId, List.of(rating));
+    }
+
+    @Override
+    public Mono<ReviewStats> addRatings(long movieInfoId, Collection<Double> ratings) {
+        var statistics = ratings.stream().mapToDouble(Double::doubleValue).summaryStatistics();
+        var update = new Update()
+                .inc("count", statistics.getCount())
+                .inc("sum", statistics.getSum())
+                .min("min", statistics.getMin())
+                .max("max", statistics.getMax());
+        // a path can only be updated once per update, so ratings are counted per bucket first
+        ratings.stream()
+                .collect(Collectors.groupingBy(ReviewStats::bucketOf, Collectors.counting()))
+                .forEach((bucket, count) -> update.inc("histogram." + bucket, count));
+        return modify(movieInfoId, update, true);
+    }
+
+    @Override
+    public Mono<ReviewStats> removeRating(long movieInfoId, double rating) {
+        return modify(movieInfoId, new Update()
+                .inc("count", -1L)
+                .inc("sum", -rating)
+                .inc("histogram." + ReviewStats.bucketOf(rating), -1L), false);
+    }
+
+    @Override
+    public Mono<ReviewStats> replaceRating(long movieInfoId, double oldRating, double newRating) {
+        var update = new Update()
+                .inc("sum", newRating - oldRating)
+                .min("min", newRating)
+                .max("max", newRating);
+        var oldBucket = ReviewStats.bucketOf(oldRating);
+        var newBucket = ReviewStats.bucketOf(newRating);
+        // a path can only be updated once per update
+        if (!oldBucket.equals(newBucket)) {
+            update.inc("histogram." + oldBucket, -1L)
+                    .inc("histogram." + newBucket, 1L);
+        }
+        return modify(movieInfoId, update, false);
+    }
+
+    @Override
+    public Mono<ReviewStats> recompute(long movieInfoId) {
+        return Mono.defer(() -> mongoTemplate.findById(movieInfoId, ReviewStats.class)
+                        .map(stats -> Optional.of(stats.getVersion()))
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(version -> version
+                                .map(readVersion -> ratingBounds(movieInfoId)
+                                        .flatMap(update -> modifyIfUnchanged(movieInfoId, readVersion, update)))
+                                .orElseGet(() -> rebuild(movieInfoId))))
+                // a $min or $max got in between: read the bounds again
+                .repeatWhenEmpty(GUARDED_WRITE_ATTEMPTS, attempts -> attempts);
+    }
+
+    private Mono<Update> ratingBounds(long movieInfoId) {
+        // each bound is the first entry of a scan of the (movieInfoId, rating, _id) index
+        return Mono.zip(ratingBound(movieInfoId, Sort.Direction.ASC), ratingBound(movieInfoId, Sort.Direction.DESC))
+                .map(bounds -> new Update().set("min", bounds.getT1()).set("max", bounds.getT2()))
+                .defaultIfEmpty(new Update().unset("min").unset("max"));
+    }
+
+    private Mono<Double> ratingBound(long movieInfoId, Sort.Direction direction) {
+        var boundQuery = query(where("movieInfoId").is(movieInfoId).and("rating").ne(null))
+                .with(Sort.by(direction, "rating"))
+                .limit(1);
+        boundQuery.fields().include("rating");
+        return mongoTemplate.findOne(boundQuery, Review.class).map(Review::getRating);
+    }
+
+    @Override
+    public Mono<ReviewStats> rebuild(long movieInfoId) {
+        return Mono.defer(() -> mongoTemplate.findById(movieInfoId, ReviewStats.class)
+                        .map(stats -> Optional.of(stats.getVersion()))
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(version -> countRatings(movieInfoId).flatMap(stats -> version
+                                .map(readVersion -> modifyIfUnchanged(movieInfoId, readVersion, new Update()
+                                        .set("count", stats.getCount())
+                                        .set("sum", stats.getSum())
+                                        .set("min", stats.getMin())
+                                        .set("max", stats.getMax())
+                                        .set("histogram", stats.getHistogram())))
+                                .orElseGet(() -> insertIfAbsent(stats)))))
+                // another write got in between: count again
+                .repeatWhenEmpty(GUARDED_WRITE_ATTEMPTS, attempts -> attempts);
+    }
+
+    private Mono<ReviewStats> countRatings(long movieInfoId) {
+        var ratingsQuery = query(where("movieInfoId").is(movieInfoId).and("rating").ne(null));
+        ratingsQuery.fields().include("rating");
+        return mongoTemplate.find(ratingsQuery, Review.class)
+                .map(Review::getRating)
+                .reduce(ReviewStats.empty(movieInfoId), (stats, rating) -> {
+                    stats.setCount(stats.getCount() + 1);
+                    stats.setSum(stats.getSum() + rating);
+                    stats.setMin(stats.getMin() == null ? rating : Math.min(stats.getMin(), rating));
+                    stats.setMax(stats.getMax() == null ? rating : Math.max(stats.getMax(), rating));
+                    stats.getHistogram().merge(ReviewStats.bucketOf(rating), 1L, Long::sum);
+                    return stats;
+                });
+    }
+
+    /**
+     * Applies {@code update} only if no other write went through since {@code readVersion} was read,
+     * and returns empty otherwise.
+     */
+    private Mono<ReviewStats> modifyIfUnchanged(long movieInfoId, long readVersion, Update update) {
+        var unchanged = query(where("_id").is(movieInfoId).and("version").is(readVersion));
+        return mongoTemplate.findAndModify(unchanged, update.inc("version", 1L),
+                FindAndModifyOptions.options().returnNew(true), ReviewStats.class);
+    }
+
+    private Mono<ReviewStats> insertIfAbsent(ReviewStats stats) {
+        stats.setVersion(1L);
+        return mongoTemplate.insert(stats)
+                .onErrorResume(DuplicateKeyException.class, ex -> Mono.empty());
+    }
+
+    private Mono<ReviewStats> modify(long movieInfoId, Update update, boolean upsert) {
+        return mongoTemplate.findAndModify(query(where("_id").is(movieInfoId)), update.inc("version", 1L),
+                FindAndModifyOptions.options().upsert(upsert).returnNew(true), ReviewStats.class);
+    }
+}
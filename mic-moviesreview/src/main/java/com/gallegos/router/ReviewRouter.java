@@ -3,9 +3,11 @@ package com.gallegos.router;
 import com.gallegos.handler.ReviewHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
 import static org.springframework.web.reactive.function.server.RequestPredicates.path;
 import static org.springframework.web.reactive.function.server.RouterFunctions.route;
 
@@ -20,7 +22,9 @@ public class ReviewRouter {
                 .nest(path("/v1/reviews"), builder ->{
                     builder
                             .POST("", request -> reviewHandler.addReview(request))
+                            .POST("/bulk", contentType(MediaType.APPLICATION_NDJSON), request -> reviewHandler.bulkAddReviews(request))
                             .GET("", request -> reviewHandler.getReviews(request))
+                            .GET("/stats", request -> reviewHandler.getReviewStats(request))
                             .PUT("/{id}", request -> reviewHandler.updateReview(request))
                             .DELETE("/{id}", request -> reviewHandler.deleteReview(request));
                 })
@@ -0,0 +1,29 @@
+package com.gallegos.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.data.mongodb.BulkOperationException;
+
+import java.util.List;
+
+final class BulkWriteErrors {
+
+    private BulkWriteErrors() {
+    }
+
+    /**
+     * The per-operation errors reported by an unordered bulk write, which still applied all the
+     * other operations, or null when {@code ex} failed the whole write.
+     */
+    static List<BulkWriteError> of(Throwable ex) {
+        for (var cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                return bulkOperationException.getErrors();
+            }
+            if (cause instanceof MongoBulkWriteException mongoBulkWriteException) {
+                return mongoBulkWriteException.getWriteErrors();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,147 @@
+package com.gallegos.service;
+
+import com.gallegos.domain.Review;
+import com.gallegos.domain.ReviewBulkResult;
+import com.gallegos.domain.ReviewBulkResult.Status;
+import com.gallegos.repository.ReviewReactiveRepository;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests NDJSON uploads of {@link Review}s. Lines are parsed and validated one by one, then
+ * inserted in batches through unordered bulk writes. A batch is written when it holds
+ * {@code reviews.bulk.batchSize} lines or when its first line has waited {@code reviews.bulk.maxWait},
+ * so a slow upload still gets its lines written and answered.
+ * <p>
+ * Only one batch is held at a time and the next lines are requested once it is written and
+ * counted in the {@link ReviewStatsService}: a slow database slows down the reading of the request
+ * body, and memory stays bounded whatever the size of the upload.
+ */
+@Service
+@Slf4j
+public class ReviewBulkService {
+
+    private record Line(long number, Review review, ReviewBulkResult rejection) {
+    }
+
+    private final ReviewReactiveRepository reviewReactiveRepository;
+    private final ReviewStatsService reviewStatsService;
+    private final JsonMapper jsonMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final Duration maxWait;
+
+    public ReviewBulkService(ReviewReactiveRepository reviewReactiveRepository,
+                             ReviewStatsService reviewStatsService,
+                             JsonMapper jsonMapper,
+                             Validator validator,
+                             @Value("${reviews.bulk.batchSize:500}") int batchSize,
+                             @Value("${reviews.bulk.maxWait:1s}") Duration maxWait) {
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewStatsService = reviewStatsService;
+        this.jsonMapper = jsonMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * @return one result per non-blank line, in line order
+     */
+    public Flux<ReviewBulkResult> ingest(Flux<String> lines) {
+        return lines.index()
+                .filter(line -> !line.getT2().isBlank())
+                .map(line -> parse(line.getT1() + 1, line.getT2()))
+                .bufferTimeout(batchSize, maxWait, true)
+                .concatMap(this::write);
+    }
+
+    private Line parse(long number, String json) {
+        Review review;
+        try {
+            review = jsonMapper.readValue(json, Review.class);
+        } catch (JacksonException ex) {
+            return rejected(number, "Malformed JSON: " + ex.getOriginalMessage());
+        }
+        var violations = validator.validate(review);
+        if (!violations.isEmpty()) {
+            return rejected(number, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        // ids are generated up front so that every line can be answered with its own
+        review.setReviewId(new ObjectId().toHexString());
+        return new Line(number, review, null);
+    }
+
+    private static Line rejected(long number, String error) {
+        return new Line(number, null, new ReviewBulkResult(number, Status.INVALID, null, error));
+    }
+
+    private Flux<ReviewBulkResult> write(List<Line> batch) {
+        var written = batch.stream().filter(line -> line.rejection() == null).toList();
+        if (written.isEmpty()) {
+            return Flux.fromIterable(batch).map(Line::rejection);
+        }
+
+        return reviewReactiveRepository.bulkInsert(written.stream().map(Line::review).toList())
+                .map(result -> Map.<Long, String>of())
+                .onErrorResume(ex -> Mono.just(failures(ex, written)))
+                .flatMap(failures -> countRatings(written, failures).thenReturn(failures))
+                .flatMapIterable(failures -> batch.stream()
+                        .map(line -> toResult(line, failures))
+                        .toList());
+    }
+
+    private Mono<Void> countRatings(List<Line> written, Map<Long, String> failures) {
+        var ratingsByMovie = written.stream()
+                .filter(line -> !failures.containsKey(line.number()))
+                .map(Line::review)
+                .collect(Collectors.groupingBy(Review::getMovieInfoId,
+                        Collectors.mapping(Review::getRating, Collectors.toList())));
+        return Flux.fromIterable(ratingsByMovie.entrySet())
+                .flatMap(ratings -> reviewStatsService.ratingsAdded(ratings.getKey(), ratings.getValue()))
+                .then();
+    }
+
+    /**
+     * Maps the error of a bulk write to the lines it failed. Unordered writes report each failed
+     * operation and still apply all the others; any other error fails the whole batch.
+     */
+    private static Map<Long, String> failures(Throwable ex, List<Line> written) {
+        log.warn("Bulk write of {} reviews failed: {}", written.size(), ex.getMessage());
+        var errors = BulkWriteErrors.of(ex);
+        if (errors != null) {
+            return errors.stream()
+                    .collect(Collectors.toMap(error -> written.get(error.getIndex()).number(), BulkWriteError::getMessage));
+        }
+        return written.stream().collect(Collectors.toMap(Line::number, line -> String.valueOf(ex.getMessage())));
+    }
+
+    private static ReviewBulkResult toResult(Line line, Map<Long, String> failures) {
+        if (line.rejection() != null) {
+            return line.rejection();
+        }
+        var id = line.review().getReviewId();
+        var error = failures.get(line.number());
+        if (error != null) {
+            return new ReviewBulkResult(line.number(), Status.FAILED, id, error);
+        }
+        return new ReviewBulkResult(line.number(), Status.INSERTED, id, null);
+    }
+}
@@ -0,0 +1,114 @@
+package com.gallegos.service;
+
+import com.gallegos.cache.ReviewStatsCache;
+import com.gallegos.domain.ReviewStats;
+import com.gallegos.repository.ReviewStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maintains the {@link ReviewStats} of every movie incrementally, as its reviews are added,
+ * updated and deleted, so that reading them costs the same whatever the number of reviews.
+ * <p>
+ * Counts, sums and the histogram are adjusted with atomic {@code $inc}s. Min and max only need to be
+ * recomputed, with two indexed lookups, when the rating leaving them was one of them. Stats that
+ * are missing when a rating is removed or changed, or that a failed adjustment may have left off,
+ * are rebuilt from the reviews.
+ */
+@Service
+@Slf4j
+public class ReviewStatsService {
+
+    private final ReviewStatsRepository reviewStatsRepository;
+    private final ReviewStatsCache reviewStatsCache;
+
+    public ReviewStatsService(ReviewStatsRepository reviewStatsRepository, ReviewStatsCache reviewStatsCache) {
+        this.reviewStatsRepository = reviewStatsRepository;
+        this.reviewStatsCache = reviewStatsCache;
+    }
+
+    public Mono<ReviewStats> getStats(long movieInfoId) {
+        var cached = reviewStatsCache.get(movieInfoId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return reviewStatsRepository.findById(movieInfoId)
+                .defaultIfEmpty(ReviewStats.empty(movieInfoId))
+                .doOnNext(reviewStatsCache::put);
+    }
+
+    public Mono<Void> ratingAdded(long movieInfoId, Double rating) {
+        if (rating == null) {
+            return Mono.empty();
+        }
+        return apply(movieInfoId, reviewStatsRepository.addRating(movieInfoId, rating));
+    }
+
+    /**
+     * Counts the ratings of reviews added together, in one write.
+     */
+    public Mono<Void> ratingsAdded(long movieInfoId, List<Double> ratings) {
+        var rated = ratings.stream().filter(Objects::nonNull).toList();
+        if (rated.isEmpty()) {
+            return Mono.empty();
+        }
+        return apply(movieInfoId, reviewStatsRepository.addRatings(movieInfoId, rated));
+    }
+
+    public Mono<Void> ratingRemoved(long movieInfoId, Double rating) {
+        if (rating == null) {
+            return Mono.empty();
+        }
+        return apply(movieInfoId, reviewStatsRepository.removeRating(movieInfoId, rating)
+                .flatMap(stats -> isBound(stats, rating) ? reviewStatsRepository.recompute(movieInfoId) : Mono.just(stats))
+                .switchIfEmpty(Mono.defer(() -> reviewStatsRepository.rebuild(movieInfoId))));
+    }
+
+    public Mono<Void> ratingChanged(long movieInfoId, Double oldRating, Double newRating) {
+        if (Objects.equals(oldRating, newRating)) {
+            return Mono.empty();
+        }
+        if (oldRating == null) {
+            return ratingAdded(movieInfoId, newRating);
+        }
+        if (newRating == null) {
+            return ratingRemoved(movieInfoId, oldRating);
+        }
+        return apply(movieInfoId, reviewStatsRepository.replaceRating(movieInfoId, oldRating, newRating)
+                .flatMap(stats -> isBound(stats, oldRating) ? reviewStatsRepository.recompute(movieInfoId) : Mono.just(stats))
+                .switchIfEmpty(Mono.defer(() -> reviewStatsRepository.rebuild(movieInfoId))));
+    }
+
+    /**
+     * Recounts the stats of the movie from its reviews, when it is unknown whether some of their
+     * ratings were counted.
+     */
+    public Mono<Void> rebuildStats(long movieInfoId) {
+        reviewStatsCache.evict(movieInfoId);
+        return apply(movieInfoId, reviewStatsRepository.rebuild(movieInfoId));
+    }
+
+    private Mono<Void> apply(long movieInfoId, Mono<ReviewStats> update) {
+        return update
+                .onErrorResume(ex -> {
+                    log.warn("Could not update the review stats of movie {}, rebuilding them: {}", movieInfoId, ex.getMessage());
+                    reviewStatsCache.evict(movieInfoId);
+                    return reviewStatsRepository.rebuild(movieInfoId);
+                })
+                .doOnNext(reviewStatsCache::put)
+                .then()
+                // the review itself is written: failing its request would only invite a duplicate
+                .onErrorResume(ex -> {
+                    log.error("Could not rebuild the review stats of movie {}", movieInfoId, ex);
+                    return Mono.empty();
+                });
+    }
+
+    private static boolean isBound(ReviewStats stats, double rating) {
+        return Objects.equals(stats.getMin(), rating) || Objects.equals(stats.getMax(), rating);
+    }
+}
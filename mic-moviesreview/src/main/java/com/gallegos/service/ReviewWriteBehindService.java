@@ -0,0 +1,345 @@
+package com.gallegos.service;
+
+import com.gallegos.domain.Review;
+import com.gallegos.repository.ReviewReactiveRepository;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Opt-in write-behind mode for review submissions ({@code reviews.writeBehind.enabled}), which
+ * absorbs spikes of submissions larger than what Mongo can write.
+ * <p>
+ * A submitted review gets its id right away and is held in a bounded in-memory queue. Every
+ * {@code reviews.writeBehind.flushInterval} the queue is drained to Mongo in unordered bulk inserts of
+ * up to {@code reviews.writeBehind.batchSize} reviews, one batch at a time, and the inserted ratings
+ * are counted in the {@link ReviewStatsService} once per movie and batch.
+ * <p>
+ * When the queue is full, reviews are appended to a local spill file, one JSON line each, and
+ * forced to disk before they are acknowledged. A batch that Mongo rejects as a whole is spilled
+ * too. The spill file is written to Mongo once the queue is empty, and at startup, which recovers
+ * the reviews spilled before a crash. Since the ids are assigned before a review is held, replaying
+ * a review that was already inserted fails with a duplicate key and is skipped, so spilled reviews
+ * are inserted once. Whether the rating of such a review was counted is unknown (Mongo may have
+ * applied a batch whose write then failed, or {@link #stop()} may have interrupted it), so the stats
+ * of the movies it belongs to are rebuilt from their reviews rather than adjusted. On shutdown, the
+ * reviews still in memory are spilled; only the reviews queued in memory when the process dies are
+ * lost.
+ * <p>
+ * The spill file ({@code reviews.writeBehind.spillFile}) has no default: it must be on a volume that
+ * outlives the process, which a temporary directory does not guarantee, so enabling write-behind
+ * without it fails at startup.
+ */
+@Service
+@Slf4j
+public class ReviewWriteBehindService {
+
+    private final ReviewReactiveRepository reviewReactiveRepository;
+    private final ReviewStatsService reviewStatsService;
+    private final JsonMapper jsonMapper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final BlockingQueue<Review> queue;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final Object spillLock = new Object();
+    private final Timer flushTimer;
+    private final Counter spilled;
+    private final Counter dropped;
+    private volatile List<Review> inFlight = List.of();
+    private Disposable flusher;
+
+    public ReviewWriteBehindService(ReviewReactiveRepository reviewReactiveRepository,
+                                    ReviewStatsService reviewStatsService,
+                                    JsonMapper jsonMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${reviews.writeBehind.enabled:false}") boolean enabled,
+                                    @Value("${reviews.writeBehind.queueSize:10000}") int queueSize,
+                                    @Value("${reviews.writeBehind.batchSize:500}") int batchSize,
+                                    @Value("${reviews.writeBehind.flushInterval:100ms}") Duration flushInterval,
+                                    @Value("${reviews.writeBehind.spillFile:#{null}}") Path spillFile) {
+        if (enabled && spillFile == null) {
+            throw new IllegalStateException("reviews.writeBehind.spillFile must be set when reviews.writeBehind.enabled is true");
+        }
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewStatsService = reviewStatsService;
+        this.jsonMapper = jsonMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.spillFile = spillFile;
+        this.replayFile = spillFile == null ? null : spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+        meterRegistry.gaugeCollectionSize("reviews.writebehind.queue.size", Tags.empty(), queue);
+        this.flushTimer = Timer.builder("reviews.writebehind.flush")
+                .description("Time to write one batch of queued reviews to Mongo")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.spilled = meterRegistry.counter("reviews.writebehind.spilled");
+        this.dropped = meterRegistry.counter("reviews.writebehind.dropped");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accepts a validated review for a later write: it is given its id, then queued, or spilled
+     * when the queue is full.
+     *
+     * @return the review with its id, once it is held
+     */
+    public Mono<Review> submit(Review review) {
+        review.setReviewId(new ObjectId().toHexString());
+        if (queue.offer(review)) {
+            return Mono.just(review);
+        }
+        return Mono.fromCallable(() -> {
+                    spill(List.of(review));
+                    return review;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || flusher != null) {
+            return;
+        }
+        flusher = Flux.interval(Duration.ZERO, flushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flush()
+                        .onErrorResume(ex -> {
+                            log.warn("Write-behind flush failed, retrying in {}: {}", flushInterval, ex.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+        log.info("Write-behind of reviews enabled, spilling to {}", spillFile);
+    }
+
+    /**
+     * Keeps the reviews still in memory, including the batch being written, in the spill file.
+     */
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.dispose();
+        flusher = null;
+        var remaining = new ArrayList<>(inFlight);
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            try {
+                spill(remaining);
+            } catch (UncheckedIOException ex) {
+                log.error("Could not spill {} queued reviews, they are lost", remaining.size(), ex);
+                dropped.increment(remaining.size());
+            }
+        }
+    }
+
+    /**
+     * Writes the queued reviews to Mongo, then, when the queue is empty and Mongo accepted all its
+     * batches, the spilled ones.
+     */
+    public Mono<Void> flush() {
+        var failed = new AtomicBoolean();
+        return drainQueue(failed)
+                .then(Mono.defer(() -> failed.get() ? Mono.<Void>empty() : replaySpill()));
+    }
+
+    private Mono<Void> drainQueue(AtomicBoolean failed) {
+        return Mono.defer(() -> {
+                    var batch = new ArrayList<Review>(batchSize);
+                    queue.drainTo(batch, batchSize);
+                    if (batch.isEmpty()) {
+                        return Mono.<Void>empty();
+                    }
+                    inFlight = batch;
+                    return write(batch)
+                            .onErrorResume(ex -> {
+                                failed.set(true);
+                                return spillFailed(batch, ex);
+                            })
+                            // a cancelled batch is left for stop() to spill
+                            .doFinally(signal -> {
+                                if (signal != SignalType.CANCEL) {
+                                    inFlight = List.of();
+                                }
+                            });
+                })
+                .repeat(() -> !queue.isEmpty())
+                .then();
+    }
+
+    private Mono<Void> spillFailed(List<Review> batch, Throwable ex) {
+        log.warn("Write of {} queued reviews failed, spilling them: {}", batch.size(), ex.getMessage());
+        return Mono.fromRunnable(() -> spill(batch))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(UncheckedIOException.class, spillEx -> {
+                    log.error("Could not spill {} queued reviews, they are lost", batch.size(), spillEx);
+                    dropped.increment(batch.size());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Writes the spill file in batches and deletes it. While it is read, new spills go to a new file.
+     * When a batch fails, the file is kept and replayed from its start on the next flush.
+     */
+    private Mono<Void> replaySpill() {
+        return Mono.defer(() -> queue.isEmpty() ? Mono.fromCallable(this::claimSpill) : Mono.just(false))
+                .subscribeOn(Schedulers.boundedElastic())
+                .filter(claimed -> claimed)
+                .flatMapMany(claimed -> Flux.using(() -> Files.lines(replayFile), Flux::fromStream, Stream::close)
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .filter(line -> !line.isBlank())
+                .mapNotNull(this::parse)
+                .buffer(batchSize)
+                .concatMap(this::write)
+                .then(Mono.fromCallable(() -> Files.deleteIfExists(replayFile))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .then();
+    }
+
+    private boolean claimSpill() throws IOException {
+        synchronized (spillLock) {
+            if (Files.exists(replayFile)) {
+                return true;
+            }
+            if (!Files.exists(spillFile) || Files.size(spillFile) == 0) {
+                return false;
+            }
+            Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        }
+    }
+
+    /**
+     * Inserts the batch and counts the ratings of the reviews it inserted. Duplicates are reviews
+     * inserted before, and other per-review errors would fail again: neither is retried. Fails when
+     * the batch was rejected as a whole.
+     */
+    private Mono<Void> write(List<Review> batch) {
+        var start = System.nanoTime();
+        return reviewReactiveRepository.bulkInsert(batch)
+                .map(result -> List.<BulkWriteError>of())
+                .onErrorResume(ex -> {
+                    var errors = BulkWriteErrors.of(ex);
+                    if (errors == null) {
+                        return Mono.error(ex);
+                    }
+                    for (var error : errors) {
+                        if (!isDuplicate(error)) {
+                            log.error("Queued review {} could not be written: {}",
+                                    batch.get(error.getIndex()).getReviewId(), error.getMessage());
+                            dropped.increment();
+                        }
+                    }
+                    return Mono.just(errors);
+                })
+                .doFinally(signal -> flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .flatMap(errors -> countRatings(batch, errors));
+    }
+
+    private Mono<Void> countRatings(List<Review> batch, List<BulkWriteError> errors) {
+        var failed = errors.stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+        // the rating of a duplicate may or may not have been counted when it was first inserted
+        var rebuilt = errors.stream()
+                .filter(ReviewWriteBehindService::isDuplicate)
+                .map(error -> batch.get(error.getIndex()).getMovieInfoId())
+                .collect(Collectors.toSet());
+        var inserted = new ArrayList<Review>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (!failed.contains(i) && !rebuilt.contains(batch.get(i).getMovieInfoId())) {
+                inserted.add(batch.get(i));
+            }
+        }
+        var ratingsByMovie = inserted.stream()
+                .collect(Collectors.groupingBy(Review::getMovieInfoId,
+                        Collectors.mapping(Review::getRating, Collectors.toList())));
+        return Flux.fromIterable(ratingsByMovie.entrySet())
+                .flatMap(ratings -> reviewStatsService.ratingsAdded(ratings.getKey(), ratings.getValue()))
+                .thenMany(Flux.fromIterable(rebuilt).flatMap(reviewStatsService::rebuildStats))
+                .then();
+    }
+
+    private static boolean isDuplicate(BulkWriteError error) {
+        return ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY;
+    }
+
+    private void spill(Collection<Review> reviews) {
+        var lines = reviews.stream()
+                .map(jsonMapper::writeValueAsString)
+                .collect(Collectors.joining("\n", "", "\n"));
+        synchronized (spillLock) {
+            try {
+                Files.createDirectories(spillFile.toAbsolutePath().getParent());
+                try (var channel = FileChannel.open(spillFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    var buffer = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not spill reviews to " + spillFile, ex);
+            }
+        }
+        spilled.increment(reviews.size());
+    }
+
+    /**
+     * A crash can leave the last line of the spill file partly written: it was never acknowledged.
+     */
+    private Review parse(String line) {
+        try {
+            return jsonMapper.readValue(line, Review.class);
+        } catch (JacksonException ex) {
+            log.warn("Skipping unreadable spilled review: {}", line);
+            dropped.increment();
+            return null;
+        }
+    }
+}
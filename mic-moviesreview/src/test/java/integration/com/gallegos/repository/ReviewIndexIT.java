@@ -0,0 +1,110 @@
+package integration.com.gallegos.repository;
+
+import com.gallegos.MoviesReviewServiceApplication;
+import com.gallegos.config.MongoIndexConfig;
+import com.gallegos.domain.Review;
+import com.gallegos.domain.ReviewSort;
+import com.gallegos.repository.ReviewReactiveRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.mongodb.test.autoconfigure.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.lt;
+import static com.mongodb.client.model.Sorts.descending;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks with {@code explain()} that the review lookups and pages are answered from an index.
+ */
+@DataMongoTest
+@ContextConfiguration(classes = MoviesReviewServiceApplication.class)
+@ActiveProfiles("test")
+@Import(MongoIndexConfig.class)
+class ReviewIndexIT {
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setup() {
+        var reviewsList = List.of(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, 2L, "Excellent Movie", 8.0));
+        reviewReactiveRepository.saveAll(reviewsList)
+                .blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    void findReviewsByMovieInfoId_usesIndex() {
+        assertThat(winningPlan(eq("movieInfoId", 1L))).contains("IXSCAN").doesNotContain("COLLSCAN");
+    }
+
+    @Test
+    void newestPageOfSeveralMovies_usesIndex() {
+        // the query findPage runs for a NEWEST listing of several movies
+        var page = reviewReactiveRepository.findPage(List.of(1L, 2L), ReviewSort.NEWEST, null, 10).collectList().block();
+        var plan = winningPlan(in("movieInfoId", 1L, 2L), descending("_id"));
+
+        assertThat(page).hasSize(2);
+        assertThat(plan).contains("IXSCAN").doesNotContain("COLLSCAN");
+    }
+
+    @Test
+    void newestPage_usesCompoundIndexWithoutSort() {
+        var plan = winningPlan(and(eq("movieInfoId", 1L), lt("_id", new ObjectId())), descending("_id"));
+
+        assertThat(plan).contains("movieInfoId_id").doesNotContain("COLLSCAN").doesNotContain("\"SORT\"");
+    }
+
+    @Test
+    void ratingPage_usesCompoundIndexWithoutSort() {
+        var plan = winningPlan(in("movieInfoId", 1L, 2L), descending("rating", "_id"));
+
+        assertThat(plan).contains("movieInfoId_rating_id").doesNotContain("COLLSCAN").doesNotContain("\"SORT\"");
+    }
+
+    @Test
+    void unfilteredRatingPage_usesIndex() {
+        assertThat(winningPlan(new Document(), descending("rating", "_id"))).contains("rating_id").doesNotContain("COLLSCAN");
+    }
+
+    private String winningPlan(Bson filter) {
+        return winningPlan(filter, null);
+    }
+
+    private String winningPlan(Bson filter, Bson sort) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Review.class))
+                .flatMap(collection -> {
+                    var find = collection.find(filter);
+                    if (sort != null) {
+                        find = find.sort(sort);
+                    }
+                    return Mono.from(find.explain());
+                })
+                .map(explain -> explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson())
+                .block();
+    }
+}
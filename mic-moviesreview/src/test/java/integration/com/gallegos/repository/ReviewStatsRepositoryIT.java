@@ -0,0 +1,121 @@
+package integration.com.gallegos.repository;
+
+import com.gallegos.MoviesReviewServiceApplication;
+import com.gallegos.domain.Review;
+import com.gallegos.repository.ReviewReactiveRepository;
+import com.gallegos.repository.ReviewStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.mongodb.test.autoconfigure.DataMongoTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataMongoTest
+@ContextConfiguration(classes = MoviesReviewServiceApplication.class)
+@ActiveProfiles("test")
+class ReviewStatsRepositoryIT {
+
+    @Autowired
+    private ReviewStatsRepository reviewStatsRepository;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @AfterEach
+    void tearDown() {
+        reviewStatsRepository.deleteAll().block();
+        reviewReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    void addAndRemoveRatings() {
+        // when
+        Flux.just(9.0, 8.5, 6.0)
+                .concatMap(rating -> reviewStatsRepository.addRating(1L, rating))
+                .blockLast();
+        reviewStatsRepository.replaceRating(1L, 8.5, 7.0).block();
+        var stats = reviewStatsRepository.removeRating(1L, 6.0).block();
+
+        // then
+        assertEquals(2, stats.getCount());
+        assertEquals(16.0, stats.getSum());
+        assertEquals(8.0, stats.getMean());
+        assertEquals(6.0, stats.getMin());
+        assertEquals(9.0, stats.getMax());
+        assertEquals(Map.of("9", 1L, "8", 0L, "7", 1L, "6", 0L), stats.getHistogram());
+        assertEquals(5, stats.getVersion());
+    }
+
+    @Test
+    void recompute() {
+        // given
+        reviewReactiveRepository.saveAll(List.of(
+                        new Review(null, 1L, "Awesome Movie", 9.0),
+                        new Review(null, 1L, "Good Movie", 7.5),
+                        new Review(null, 1L, "No rating", null),
+                        new Review(null, 2L, "Excellent Movie", 8.0)))
+                .blockLast();
+        reviewStatsRepository.addRating(1L, 1.0).block();
+
+        // when
+        var stats = reviewStatsRepository.recompute(1L).block();
+
+        // then only the bounds are read from the reviews, the counts stay as they were incremented
+        assertEquals(1, stats.getCount());
+        assertEquals(7.5, stats.getMin());
+        assertEquals(9.0, stats.getMax());
+        assertEquals(Map.of("1", 1L), stats.getHistogram());
+    }
+
+    @Test
+    void removeRating_missingStatsAreNotCreated() {
+        // when
+        var stats = reviewStatsRepository.removeRating(3L, 9.0).block();
+
+        // then
+        assertNull(stats);
+        assertNull(reviewStatsRepository.findById(3L).block());
+    }
+
+    @Test
+    void rebuild() {
+        // given
+        reviewReactiveRepository.saveAll(List.of(
+                        new Review(null, 1L, "Awesome Movie", 9.0),
+                        new Review(null, 1L, "Good Movie", 7.5),
+                        new Review(null, 1L, "No rating", null)))
+                .blockLast();
+
+        // when
+        var created = reviewStatsRepository.rebuild(1L).block();
+        reviewStatsRepository.addRating(1L, 1.0).block();
+        var rebuilt = reviewStatsRepository.rebuild(1L).block();
+
+        // then
+        assertEquals(2, created.getCount());
+        assertEquals(Map.of("9", 1L, "7", 1L), created.getHistogram());
+        assertEquals(2, rebuilt.getCount());
+        assertEquals(16.5, rebuilt.getSum());
+        assertEquals(7.5, rebuilt.getMin());
+        assertEquals(3, rebuilt.getVersion());
+    }
+
+    @Test
+    void recompute_noReviews() {
+        // when
+        var stats = reviewStatsRepository.recompute(3L).block();
+
+        // then
+        assertEquals(0, stats.getCount());
+        assertNull(stats.getMin());
+        assertNull(stats.getMean());
+    }
+}
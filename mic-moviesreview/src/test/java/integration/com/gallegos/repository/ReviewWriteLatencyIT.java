@@ -0,0 +1,118 @@
+package integration.com.gallegos.repository;
+
+import com.gallegos.MoviesReviewServiceApplication;
+import com.gallegos.domain.Review;
+import com.gallegos.repository.ReviewReactiveRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.mongodb.test.autoconfigure.DataMongoTest;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of a review update and delete against the embedded Mongo: read then write, as the handler
+ * used to do, vs. one findAndModify / findAndRemove.
+ */
+@DataMongoTest
+@ContextConfiguration(classes = MoviesReviewServiceApplication.class)
+@ActiveProfiles("test")
+@Slf4j
+class ReviewWriteLatencyIT {
+
+    private static final int WARMUP_OPERATIONS = 200;
+    private static final int OPERATIONS = 1000;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    private List<String> reviewIds;
+
+    @BeforeEach
+    void setup() {
+        reviewIds = reviewReactiveRepository.saveAll(IntStream.range(0, 2 * (WARMUP_OPERATIONS + OPERATIONS))
+                        .mapToObj(i -> new Review(null, (long) i % 50, "Review " + i, (double) (i % 10)))
+                        .toList())
+                .map(Review::getReviewId)
+                .collectList()
+                .block();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    void updateReview_findAndModifyVsFindThenSave() {
+        // when
+        var findThenSave = latencies(reviewId -> reviewReactiveRepository.findById(reviewId)
+                .flatMap(review -> {
+                    review.setComment("Updated");
+                    review.setRating(5.0);
+                    return reviewReactiveRepository.save(review);
+                }));
+        var findAndModify = latencies(reviewId -> reviewReactiveRepository.updateById(reviewId,
+                new Update().set("comment", "Updated").set("rating", 5.0)));
+        log.info("Review update: findById+save p50={}µs p99={}µs, findAndModify p50={}µs p99={}µs",
+                percentile(findThenSave, 50), percentile(findThenSave, 99),
+                percentile(findAndModify, 50), percentile(findAndModify, 99));
+
+        // then
+        assertThat(percentile(findAndModify, 50)).isLessThan(percentile(findThenSave, 50));
+        assertThat(reviewReactiveRepository.findAll()
+                .filter(review -> !"Updated".equals(review.getComment()))
+                .count().block()).isZero();
+    }
+
+    @Test
+    void deleteReview_findAndRemoveVsFindThenDelete() {
+        // when
+        var findThenDelete = latencies(reviewId -> reviewReactiveRepository.findById(reviewId)
+                .flatMap(review -> reviewReactiveRepository.deleteById(reviewId).thenReturn(review)));
+        var findAndRemove = latencies(reviewReactiveRepository::removeById);
+        log.info("Review delete: findById+deleteById p50={}µs p99={}µs, findAndRemove p50={}µs p99={}µs",
+                percentile(findThenDelete, 50), percentile(findThenDelete, 99),
+                percentile(findAndRemove, 50), percentile(findAndRemove, 99));
+
+        // then
+        assertThat(percentile(findAndRemove, 50)).isLessThan(percentile(findThenDelete, 50));
+        assertThat(reviewReactiveRepository.count().block()).isZero();
+    }
+
+    /**
+     * Runs {@code operation} sequentially on the next unused half of the reviews and returns the
+     * sorted latencies in microseconds, warm-up excluded.
+     */
+    private long[] latencies(Function<String, Mono<Review>> operation) {
+        var half = reviewIds.size() / 2;
+        var ids = reviewIds.subList(0, half);
+        reviewIds = reviewIds.subList(half, reviewIds.size());
+
+        var latencies = new long[OPERATIONS];
+        for (int i = 0; i < ids.size(); i++) {
+            var start = System.nanoTime();
+            assertThat(operation.apply(ids.get(i)).block()).isNotNull();
+            if (i >= WARMUP_OPERATIONS) {
+                latencies[i - WARMUP_OPERATIONS] = (System.nanoTime() - start) / 1_000;
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static long percentile(long[] sortedLatencies, int percentile) {
+        return sortedLatencies[Math.min(sortedLatencies.length - 1, sortedLatencies.length * percentile / 100)];
+    }
+}
@@ -2,7 +2,10 @@ package integration.com.gallegos.router;
 
 import com.gallegos.MoviesReviewServiceApplication;
 import com.gallegos.domain.Review;
+import com.gallegos.domain.ReviewStats;
+import com.gallegos.handler.ReviewHandler;
 import com.gallegos.repository.ReviewReactiveRepository;
+import com.gallegos.repository.ReviewStatsRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +15,7 @@ import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTest
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -31,6 +35,9 @@ class ReviewRouterIT {
     @Autowired
     private ReviewReactiveRepository reviewReactiveRepository;
 
+    @Autowired
+    private ReviewStatsRepository reviewStatsRepository;
+
     @BeforeEach
     void setup() {
         var reviewsList = List.of(
@@ -44,6 +51,7 @@ class ReviewRouterIT {
     @AfterEach
     void tearDown() {
         reviewReactiveRepository.deleteAll().block();
+        reviewStatsRepository.deleteAll().block();
     }
 
     @Test
@@ -129,6 +137,21 @@ class ReviewRouterIT {
                 });
     }
 
+    @Test
+    void updateReview_notFound() {
+        //when & then
+        webTestClient
+                .put()
+                .uri(REVIEWS_URL + "/{id}", "missing")
+                .bodyValue(new Review(null, 1L, "Awesome Movie updated", 9.0))
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+        assertEquals(0, reviewReactiveRepository.findAll()
+                .filter(review -> "Awesome Movie updated".equals(review.getComment()))
+                .count().block());
+    }
+
     @Test
     void deleteReview() {
         // given
@@ -144,6 +167,73 @@ class ReviewRouterIT {
                 .exchange()
                 .expectStatus()
                 .isNoContent();
+        assertEquals(2, reviewReactiveRepository.count().block());
+    }
+
+    @Test
+    void deleteReview_notFound() {
+        //when & then
+        webTestClient
+                .delete()
+                .uri(REVIEWS_URL + "/{id}", "missing")
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+        assertEquals(3, reviewReactiveRepository.count().block());
+    }
+
+    @Test
+    void getReviewStats_followsWrites() {
+        // given
+        for (var rating : List.of(6.0, 9.0)) {
+            webTestClient.post()
+                    .uri(REVIEWS_URL)
+                    .bodyValue(new Review(null, 3L, "Rated " + rating, rating))
+                    .exchange()
+                    .expectStatus()
+                    .isCreated();
+        }
+
+        //when & then
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL + "/stats?movieInfoId=3")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(ReviewStats.class)
+                .consumeWith(result -> {
+                    var stats = result.getResponseBody();
+                    assertNotNull(stats);
+                    assertEquals(2, stats.getCount());
+                    assertEquals(7.5, stats.getMean());
+                    assertEquals(6.0, stats.getMin());
+                    assertEquals(9.0, stats.getMax());
+                });
     }
 
+    @Test
+    void getReviews_pagesThroughAllReviews() {
+        // given
+        var pages = new ArrayList<List<Review>>();
+        String cursor = null;
+
+        //when
+        do {
+            var uri = REVIEWS_URL + "?sort=rating&limit=2" + (cursor == null ? "" : "&after=" + cursor);
+            var result = webTestClient.get()
+                    .uri(uri)
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBodyList(Review.class)
+                    .returnResult();
+            pages.add(result.getResponseBody());
+            cursor = result.getResponseHeaders().getFirst(ReviewHandler.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        //then
+        assertEquals(2, pages.size());
+        assertEquals(List.of(9.0, 9.0, 8.0), pages.stream().flatMap(List::stream).map(Review::getRating).toList());
+    }
 }
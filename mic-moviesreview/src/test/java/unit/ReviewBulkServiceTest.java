@@ -0,0 +1,165 @@
+package unit;
+
+import com.gallegos.domain.Review;
+import com.gallegos.domain.ReviewBulkResult.Status;
+import com.gallegos.repository.ReviewReactiveRepository;
+import com.gallegos.service.ReviewBulkService;
+import com.gallegos.service.ReviewStatsService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewBulkServiceTest {
+
+    private ReviewReactiveRepository reviewReactiveRepository;
+    private ReviewStatsService reviewStatsService;
+
+    @BeforeEach
+    void setup() {
+        reviewReactiveRepository = mock(ReviewReactiveRepository.class);
+        reviewStatsService = mock(ReviewStatsService.class);
+        when(reviewStatsService.ratingsAdded(anyLong(), any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void ingest() {
+        // given
+        var reviewBulkService = reviewBulkService(2, Duration.ofMinutes(1));
+        var lines = Flux.just(
+                "{\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}",
+                "{\"movieInfoId\":1,\"comment\":\"Awesome Movie1\",\"rating\":8.0}",
+                "{not json",
+                "",
+                "{\"comment\":\"Awesome Movie\",\"rating\":-9.0}",
+                "{\"movieInfoId\":2,\"comment\":\"Excellent Movie\"}");
+
+        // when
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+
+        // then
+        StepVerifier.create(reviewBulkService.ingest(lines))
+                .assertNext(result -> {
+                    assertEquals(1, result.line());
+                    assertEquals(Status.INSERTED, result.status());
+                    assertThat(result.reviewId()).isNotBlank();
+                })
+                .assertNext(result -> assertEquals(Status.INSERTED, result.status()))
+                .assertNext(result -> {
+                    assertEquals(3, result.line());
+                    assertEquals(Status.INVALID, result.status());
+                    assertThat(result.error()).startsWith("Malformed JSON");
+                })
+                .assertNext(result -> {
+                    assertEquals(5, result.line());
+                    assertEquals(Status.INVALID, result.status());
+                    assertEquals("rating.movieInfoId : must not be null, rating.negative : please pass a non-negative value", result.error());
+                })
+                .assertNext(result -> {
+                    assertEquals(6, result.line());
+                    assertEquals(Status.INSERTED, result.status());
+                })
+                .verifyComplete();
+
+        // batches of two parsed lines; the batch holding only invalid lines is not written
+        verify(reviewReactiveRepository, times(2)).bulkInsert(any());
+        verify(reviewStatsService).ratingsAdded(1L, List.of(9.0, 8.0));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void ingest_writeErrorFailsOnlyItsLine() {
+        // given
+        var reviewBulkService = reviewBulkService(2, Duration.ofMinutes(1));
+        var lines = Flux.just(
+                "{\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}",
+                "{\"reviewId\":\"abc\",\"movieInfoId\":1,\"comment\":\"Awesome Movie1\",\"rating\":8.0}");
+        var writeError = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1);
+
+        // when
+        when(reviewReactiveRepository.bulkInsert(any()))
+                .thenReturn(Mono.error(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                        List.of(writeError), null, new ServerAddress(), Set.of())));
+
+        // then
+        StepVerifier.create(reviewBulkService.ingest(lines))
+                .assertNext(result -> assertEquals(Status.INSERTED, result.status()))
+                .assertNext(result -> {
+                    assertEquals(Status.FAILED, result.status());
+                    assertEquals("E11000 duplicate key", result.error());
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<List<Review>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(reviewReactiveRepository).bulkInsert(inserted.capture());
+        assertEquals(2, inserted.getValue().size());
+        verify(reviewStatsService).ratingsAdded(1L, List.of(9.0));
+    }
+
+    @Test
+    void ingest_partialBatchIsFlushedAfterMaxWait() {
+        // given
+        var reviewBulkService = reviewBulkService(100, Duration.ofMillis(100));
+        var lines = Sinks.many().unicast().<String>onBackpressureBuffer();
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+
+        // then
+        StepVerifier.create(reviewBulkService.ingest(lines.asFlux()))
+                .then(() -> lines.tryEmitNext("{\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}"))
+                .assertNext(result -> assertEquals(Status.INSERTED, result.status()))
+                .then(lines::tryEmitComplete)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void ingest_nextLinesWaitForTheBatchWrite() {
+        // given
+        var reviewBulkService = reviewBulkService(2, Duration.ofMinutes(1));
+        var write = Sinks.<BulkWriteResult>one();
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(write.asMono());
+        var requested = new AtomicLong();
+        var lines = Flux.range(0, 1000)
+                .map(i -> "{\"movieInfoId\":1,\"comment\":\"Review " + i + "\",\"rating\":9.0}")
+                .doOnRequest(requested::addAndGet);
+
+        // when
+        var subscription = reviewBulkService.ingest(lines).subscribe();
+
+        // then
+        assertThat(requested.get()).isLessThan(1000);
+        verify(reviewReactiveRepository, times(1)).bulkInsert(any());
+        verify(reviewStatsService, never()).ratingsAdded(anyLong(), any());
+        subscription.dispose();
+    }
+
+    private ReviewBulkService reviewBulkService(int batchSize, Duration maxWait) {
+        return new ReviewBulkService(reviewReactiveRepository, reviewStatsService, JsonMapper.builder().build(),
+                Validation.buildDefaultValidatorFactory().getValidator(), batchSize, maxWait);
+    }
+}
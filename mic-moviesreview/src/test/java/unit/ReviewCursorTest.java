@@ -0,0 +1,30 @@
+package unit;
+
+import com.gallegos.domain.ReviewCursor;
+import com.gallegos.domain.ReviewSort;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReviewCursorTest {
+
+    @Test
+    void decode_roundTrips() {
+        var newest = new ReviewCursor(ReviewSort.NEWEST, null, "65f0c0ffee");
+        var rated = new ReviewCursor(ReviewSort.RATING, 8.5, "65f0c0ffee");
+        var unrated = new ReviewCursor(ReviewSort.RATING, null, "65f0c0ffee");
+
+        assertEquals(newest, ReviewCursor.decode(newest.encode(), ReviewSort.NEWEST));
+        assertEquals(rated, ReviewCursor.decode(rated.encode(), ReviewSort.RATING));
+        assertEquals(unrated, ReviewCursor.decode(unrated.encode(), ReviewSort.RATING));
+    }
+
+    @Test
+    void decode_rejectsCursorOfAnotherSort() {
+        var newest = new ReviewCursor(ReviewSort.NEWEST, null, "65f0c0ffee").encode();
+
+        assertThrows(IllegalArgumentException.class, () -> ReviewCursor.decode(newest, ReviewSort.RATING));
+        assertThrows(IllegalArgumentException.class, () -> ReviewCursor.decode("!!", ReviewSort.NEWEST));
+    }
+}
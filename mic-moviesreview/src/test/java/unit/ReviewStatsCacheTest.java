@@ -0,0 +1,85 @@
+package unit;
+
+import com.gallegos.cache.ReviewStatsCache;
+import com.gallegos.domain.ReviewStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReviewStatsCacheTest {
+
+    @Test
+    void get_returnsPutStats() {
+        // given
+        var cache = new ReviewStatsCache(16, Duration.ofMinutes(1));
+        var stats = stats(1L, 5, 1);
+
+        // when
+        cache.put(stats);
+
+        // then
+        assertEquals(stats, cache.get(1L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    void put_keepsNewestVersion() {
+        // given
+        var cache = new ReviewStatsCache(16, Duration.ofMinutes(1));
+        cache.put(stats(1L, 6, 2));
+
+        // when
+        cache.put(stats(1L, 5, 1));
+
+        // then
+        assertEquals(6, cache.get(1L).getCount());
+    }
+
+    @Test
+    void get_expiredStatsAreMissed() {
+        // given
+        var cache = new ReviewStatsCache(16, Duration.ZERO);
+
+        // when
+        cache.put(stats(1L, 5, 1));
+
+        // then
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void put_takesOverCollidingSlot() {
+        // given
+        var cache = new ReviewStatsCache(1, Duration.ofMinutes(1));
+        cache.put(stats(1L, 5, 1));
+
+        // when
+        cache.put(stats(2L, 3, 1));
+
+        // then
+        assertNull(cache.get(1L));
+        assertEquals(3, cache.get(2L).getCount());
+    }
+
+    @Test
+    void evict_dropsOnlyThatMovie() {
+        // given
+        var cache = new ReviewStatsCache(1, Duration.ofMinutes(1));
+        cache.put(stats(1L, 5, 1));
+
+        // when
+        cache.evict(2L);
+        cache.evict(1L);
+
+        // then
+        assertNull(cache.get(1L));
+    }
+
+    private static ReviewStats stats(long movieInfoId, long count, long version) {
+        return new ReviewStats(movieInfoId, count, count * 8.0, 8.0, 8.0, new HashMap<>(), version);
+    }
+}
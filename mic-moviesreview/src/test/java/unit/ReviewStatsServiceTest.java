@@ -0,0 +1,130 @@
+package unit;
+
+import com.gallegos.cache.ReviewStatsCache;
+import com.gallegos.domain.ReviewStats;
+import com.gallegos.repository.ReviewStatsRepository;
+import com.gallegos.service.ReviewStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReviewStatsServiceTest {
+
+    private ReviewStatsRepository reviewStatsRepository;
+    private ReviewStatsService reviewStatsService;
+
+    @BeforeEach
+    void setup() {
+        reviewStatsRepository = mock(ReviewStatsRepository.class);
+        reviewStatsService = new ReviewStatsService(reviewStatsRepository, new ReviewStatsCache(16, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void ratingAdded_statsAreServedFromCache() {
+        // given
+        when(reviewStatsRepository.addRating(1L, 9.0)).thenReturn(Mono.just(stats(1, 9.0, 9.0, 9.0, 1)));
+
+        // when
+        reviewStatsService.ratingAdded(1L, 9.0).block();
+
+        // then
+        StepVerifier.create(reviewStatsService.getStats(1L))
+                .assertNext(stats -> assertEquals(9.0, stats.getMean()))
+                .verifyComplete();
+        verify(reviewStatsRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void ratingRemoved_recomputesWhenItWasTheMin() {
+        // given
+        when(reviewStatsRepository.removeRating(1L, 5.0)).thenReturn(Mono.just(stats(1, 9.0, 5.0, 9.0, 2)));
+        when(reviewStatsRepository.recompute(1L)).thenReturn(Mono.just(stats(1, 9.0, 9.0, 9.0, 3)));
+
+        // when
+        reviewStatsService.ratingRemoved(1L, 5.0).block();
+
+        // then
+        verify(reviewStatsRepository).recompute(1L);
+        assertEquals(9.0, reviewStatsService.getStats(1L).block().getMin());
+    }
+
+    @Test
+    void ratingChanged_innerRatingNeedsNoRecompute() {
+        // given
+        when(reviewStatsRepository.replaceRating(1L, 7.0, 8.0)).thenReturn(Mono.just(stats(3, 22.0, 5.0, 9.0, 4)));
+
+        // when
+        reviewStatsService.ratingChanged(1L, 7.0, 8.0).block();
+
+        // then
+        verify(reviewStatsRepository, never()).recompute(anyLong());
+    }
+
+    @Test
+    void ratingChanged_sameRatingIsNoOp() {
+        // when
+        reviewStatsService.ratingChanged(1L, 7.0, 7.0).block();
+        reviewStatsService.ratingAdded(1L, null).block();
+
+        // then
+        verifyNoInteractions(reviewStatsRepository);
+    }
+
+    @Test
+    void ratingRemoved_missingStatsAreRebuilt() {
+        // given
+        when(reviewStatsRepository.removeRating(1L, 5.0)).thenReturn(Mono.empty());
+        when(reviewStatsRepository.rebuild(1L)).thenReturn(Mono.just(stats(1, 9.0, 9.0, 9.0, 1)));
+
+        // when
+        reviewStatsService.ratingRemoved(1L, 5.0).block();
+
+        // then
+        verify(reviewStatsRepository, never()).recompute(anyLong());
+        assertEquals(1, reviewStatsService.getStats(1L).block().getCount());
+    }
+
+    @Test
+    void ratingAdded_failedIncrementFallsBackToRebuild() {
+        // given
+        when(reviewStatsRepository.addRating(1L, 9.0)).thenReturn(Mono.error(new IllegalStateException("timeout")));
+        when(reviewStatsRepository.rebuild(1L)).thenReturn(Mono.just(stats(1, 9.0, 9.0, 9.0, 1)));
+
+        // when
+        StepVerifier.create(reviewStatsService.ratingAdded(1L, 9.0))
+                .verifyComplete();
+
+        // then
+        assertEquals(1, reviewStatsService.getStats(1L).block().getCount());
+    }
+
+    @Test
+    void rebuildStats_replacesCachedStats() {
+        // given
+        when(reviewStatsRepository.addRating(1L, 9.0)).thenReturn(Mono.just(stats(1, 9.0, 9.0, 9.0, 1)));
+        when(reviewStatsRepository.rebuild(1L)).thenReturn(Mono.just(stats(2, 16.0, 7.0, 9.0, 2)));
+        reviewStatsService.ratingAdded(1L, 9.0).block();
+
+        // when
+        reviewStatsService.rebuildStats(1L).block();
+
+        // then
+        assertEquals(2, reviewStatsService.getStats(1L).block().getCount());
+    }
+
+    private static ReviewStats stats(long count, double sum, double min, double max, long version) {
+        return new ReviewStats(1L, count, sum, min, max, new HashMap<>(), version);
+    }
+}
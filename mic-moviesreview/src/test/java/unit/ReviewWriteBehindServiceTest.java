@@ -0,0 +1,257 @@
+package unit;
+
+import com.gallegos.domain.Review;
+import com.gallegos.repository.ReviewReactiveRepository;
+import com.gallegos.service.ReviewStatsService;
+import com.gallegos.service.ReviewWriteBehindService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewWriteBehindServiceTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private Path spillFile;
+    private ReviewReactiveRepository reviewReactiveRepository;
+    private ReviewStatsService reviewStatsService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        spillFile = tempDir.resolve("spill/reviews-spill.ndjson");
+        reviewReactiveRepository = mock(ReviewReactiveRepository.class);
+        reviewStatsService = mock(ReviewStatsService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(reviewStatsService.ratingsAdded(anyLong(), any())).thenReturn(Mono.empty());
+        when(reviewStatsService.rebuildStats(anyLong())).thenReturn(Mono.empty());
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void flush_writesQueuedReviewsInBatches() {
+        // given
+        var writeBehind = writeBehind(10);
+        for (var rating : List.of(9.0, 8.0, 7.0)) {
+            var review = writeBehind.submit(new Review(null, 1L, "Rated " + rating, rating)).block();
+            assertThat(review.getReviewId()).isNotBlank();
+        }
+        assertEquals(3, meterRegistry.get("reviews.writebehind.queue.size").gauge().value());
+
+        // when
+        writeBehind.flush().block();
+
+        // then
+        ArgumentCaptor<List<Review>> batches = ArgumentCaptor.forClass(List.class);
+        verify(reviewReactiveRepository, times(2)).bulkInsert(batches.capture());
+        assertEquals(List.of(2, 1), batches.getAllValues().stream().map(List::size).toList());
+        verify(reviewStatsService).ratingsAdded(1L, List.of(9.0, 8.0));
+        verify(reviewStatsService).ratingsAdded(1L, List.of(7.0));
+        assertEquals(0, meterRegistry.get("reviews.writebehind.queue.size").gauge().value());
+        assertEquals(2, meterRegistry.get("reviews.writebehind.flush").timer().count());
+        assertThat(spillFile).doesNotExist();
+    }
+
+    @Test
+    void submit_spillsWhenQueueIsFull() throws IOException {
+        // given
+        var writeBehind = writeBehind(1);
+
+        // when
+        var queued = writeBehind.submit(new Review(null, 1L, "Awesome Movie", 9.0)).block();
+        var spilled = writeBehind.submit(new Review(null, 2L, "Excellent Movie", 8.0)).block();
+
+        // then
+        assertEquals(List.of(spilled.getReviewId()), spilledIds());
+        assertEquals(1, meterRegistry.get("reviews.writebehind.spilled").counter().count());
+
+        // the queue is written first, then the spill file
+        writeBehind.flush().block();
+        var inserted = insertedIds(2);
+        assertEquals(List.of(queued.getReviewId(), spilled.getReviewId()), inserted);
+        assertThat(spillFile).doesNotExist();
+    }
+
+    @Test
+    void flush_spillsBatchRejectedByMongo() throws IOException {
+        // given
+        var writeBehind = writeBehind(10);
+        var review = writeBehind.submit(new Review(null, 1L, "Awesome Movie", 9.0)).block();
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(Mono.error(new IllegalStateException("Mongo down")));
+
+        // when
+        writeBehind.flush().block();
+
+        // then
+        assertEquals(List.of(review.getReviewId()), spilledIds());
+        verify(reviewStatsService, times(0)).ratingsAdded(anyLong(), any());
+    }
+
+    @Test
+    void crashRecovery_replaysSpillFile() throws IOException {
+        // given: reviews spilled by an instance that died before writing them
+        var crashed = writeBehind(1);
+        crashed.submit(new Review(null, 1L, "Queued, lost in the crash", 9.0)).block();
+        var spilledReviews = List.of(
+                crashed.submit(new Review(null, 1L, "Awesome Movie", 9.0)).block(),
+                crashed.submit(new Review(null, 2L, "Excellent Movie", 8.0)).block(),
+                crashed.submit(new Review(null, 2L, "Already inserted", 7.0)).block());
+        // the write of the last line was interrupted by the crash
+        Files.writeString(spillFile, "{\"reviewId\":\"abc\",\"movieInf", StandardOpenOption.APPEND);
+
+        // the third spilled review made it to Mongo before the crash
+        var duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 2);
+        when(reviewReactiveRepository.bulkInsert(any()))
+                .thenReturn(Mono.error(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                        List.of(duplicate), null, new ServerAddress(), Set.of())));
+
+        // when
+        var restarted = writeBehind(1, 10);
+        restarted.flush().block();
+
+        // then
+        assertEquals(spilledReviews.stream().map(Review::getReviewId).toList(), insertedIds(1));
+        verify(reviewStatsService).ratingsAdded(1L, List.of(9.0));
+        // whether the duplicate was counted is unknown, so its movie is recounted
+        verify(reviewStatsService, never()).ratingsAdded(eq(2L), any());
+        verify(reviewStatsService).rebuildStats(2L);
+        assertEquals(1, meterRegistry.get("reviews.writebehind.dropped").counter().count());
+        assertThat(spillFile).doesNotExist();
+        assertThat(spillFile.resolveSibling("reviews-spill.ndjson.replay")).doesNotExist();
+    }
+
+    @Test
+    void replay_batchAppliedDespiteItsFailureIsRecounted() throws IOException {
+        // given: Mongo applied the first two reviews of the batch, but the write failed as a whole
+        var writeBehind = writeBehind(10, 3);
+        var reviews = List.of(
+                writeBehind.submit(new Review(null, 1L, "Awesome Movie", 9.0)).block(),
+                writeBehind.submit(new Review(null, 1L, "Awesome Movie1", 7.0)).block(),
+                writeBehind.submit(new Review(null, 2L, "Excellent Movie", 8.0)).block());
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(Mono.error(new IllegalStateException("Socket timeout")));
+        writeBehind.flush().block();
+        assertEquals(reviews.stream().map(Review::getReviewId).toList(), spilledIds());
+
+        // when: the replay finds those two already inserted
+        var duplicates = List.of(
+                new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0),
+                new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1));
+        when(reviewReactiveRepository.bulkInsert(any()))
+                .thenReturn(Mono.error(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                        duplicates, null, new ServerAddress(), Set.of())));
+        writeBehind.flush().block();
+
+        // then the movie of the acknowledged-late reviews is recounted, the other one is adjusted
+        verify(reviewStatsService).rebuildStats(1L);
+        verify(reviewStatsService, never()).ratingsAdded(eq(1L), any());
+        verify(reviewStatsService).ratingsAdded(2L, List.of(8.0));
+        assertThat(spillFile.resolveSibling("reviews-spill.ndjson.replay")).doesNotExist();
+    }
+
+    @Test
+    void crashRecovery_failedReplayIsKept() throws IOException {
+        // given
+        var crashed = writeBehind(1);
+        crashed.submit(new Review(null, 1L, "Queued", 9.0)).block();
+        var spilled = crashed.submit(new Review(null, 1L, "Awesome Movie", 9.0)).block();
+        var restarted = writeBehind(1);
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(Mono.error(new IllegalStateException("Mongo down")));
+
+        // when
+        restarted.flush().onErrorComplete().block();
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        restarted.flush().block();
+
+        // then
+        assertEquals(List.of(spilled.getReviewId(), spilled.getReviewId()), insertedIds(2));
+        verify(reviewStatsService, times(1)).ratingsAdded(1L, List.of(9.0));
+        assertThat(spillFile.resolveSibling("reviews-spill.ndjson.replay")).doesNotExist();
+    }
+
+    @Test
+    void stop_spillsQueuedAndInFlightReviews() throws IOException {
+        // given
+        var writeBehind = new ReviewWriteBehindService(reviewReactiveRepository, reviewStatsService,
+                JsonMapper.builder().build(), meterRegistry, true, 10, 2, Duration.ofHours(1), spillFile);
+        var reviewIds = List.of(
+                writeBehind.submit(new Review(null, 1L, "Awesome Movie", 9.0)).block().getReviewId(),
+                writeBehind.submit(new Review(null, 1L, "Awesome Movie1", 9.0)).block().getReviewId(),
+                writeBehind.submit(new Review(null, 2L, "Excellent Movie", 8.0)).block().getReviewId());
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(Mono.never());
+
+        // when
+        writeBehind.start();
+        verify(reviewReactiveRepository, timeout(5000)).bulkInsert(any());
+        writeBehind.stop();
+
+        // then
+        assertEquals(reviewIds, spilledIds());
+    }
+
+    @Test
+    void enabledWithoutSpillFile_failsAtStartup() {
+        // when & then
+        assertThrows(IllegalStateException.class, () -> new ReviewWriteBehindService(reviewReactiveRepository,
+                reviewStatsService, JsonMapper.builder().build(), meterRegistry, true, 10, 2, Duration.ofMillis(100), null));
+        new ReviewWriteBehindService(reviewReactiveRepository, reviewStatsService,
+                JsonMapper.builder().build(), meterRegistry, false, 10, 2, Duration.ofMillis(100), null);
+    }
+
+    private ReviewWriteBehindService writeBehind(int queueSize) {
+        return writeBehind(queueSize, 2);
+    }
+
+    private ReviewWriteBehindService writeBehind(int queueSize, int batchSize) {
+        return new ReviewWriteBehindService(reviewReactiveRepository, reviewStatsService,
+                JsonMapper.builder().build(), meterRegistry, true, queueSize, batchSize, Duration.ofMillis(100), spillFile);
+    }
+
+    private List<String> spilledIds() throws IOException {
+        var jsonMapper = JsonMapper.builder().build();
+        return Files.readAllLines(spillFile).stream()
+                .map(line -> jsonMapper.readValue(line, Review.class).getReviewId())
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> insertedIds(int writes) {
+        ArgumentCaptor<List<Review>> batches = ArgumentCaptor.forClass(List.class);
+        verify(reviewReactiveRepository, times(writes)).bulkInsert(batches.capture());
+        return batches.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(Review::getReviewId)
+                .toList();
+    }
+}
@@ -1,14 +1,28 @@
 package unit;
 
 import com.gallegos.domain.Review;
+import com.gallegos.domain.ReviewBulkResult;
+import com.gallegos.domain.ReviewCursor;
+import com.gallegos.domain.ReviewSort;
+import com.gallegos.domain.ReviewStats;
 import com.gallegos.exceptionhandler.GlobalErrorHandler;
+import com.gallegos.filter.DeadlineWebFilter;
 import com.gallegos.handler.ReviewHandler;
 import com.gallegos.repository.ReviewReactiveRepository;
 import com.gallegos.router.ReviewRouter;
+import com.gallegos.service.ReviewBulkService;
+import com.gallegos.service.ReviewStatsService;
+import com.gallegos.service.ReviewWriteBehindService;
+import com.mongodb.bulk.BulkWriteResult;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webflux.test.autoconfigure.WebFluxTest;
 import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -16,17 +30,26 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest
 @ContextConfiguration(classes = {
         ReviewRouter.class,
         ReviewHandler.class,
-        GlobalErrorHandler.class
+        ReviewBulkService.class,
+        GlobalErrorHandler.class,
+        DeadlineWebFilter.class
 })
 @AutoConfigureWebTestClient
 class ReviewsTest {
@@ -36,9 +59,23 @@ class ReviewsTest {
     @MockitoBean
     private ReviewReactiveRepository reviewReactiveRepository;
 
+    @MockitoBean
+    private ReviewStatsService reviewStatsService;
+
+    @MockitoBean
+    private ReviewWriteBehindService reviewWriteBehindService;
+
     @Autowired
     private WebTestClient webTestClient;
 
+    @BeforeEach
+    void setup() {
+        when(reviewStatsService.ratingAdded(anyLong(), any())).thenReturn(Mono.empty());
+        when(reviewStatsService.ratingChanged(anyLong(), any(), any())).thenReturn(Mono.empty());
+        when(reviewStatsService.ratingRemoved(anyLong(), any())).thenReturn(Mono.empty());
+        when(reviewStatsService.ratingsAdded(anyLong(), any())).thenReturn(Mono.empty());
+    }
+
     @Test
     void addReview() {
         // given
@@ -63,6 +100,84 @@ class ReviewsTest {
                     assert savedReview.getReviewId() != null;
                     assertEquals("Rush", savedReview.getComment());
                 });
+        verify(reviewStatsService).ratingAdded(1L, 9.0);
+    }
+
+    @Test
+    void addReview_writeBehind() {
+        // given
+        var review = new Review(null, 1L, "Awesome Movie", 9.0);
+
+        // when
+        when(reviewWriteBehindService.isEnabled()).thenReturn(true);
+        when(reviewWriteBehindService.submit(any(Review.class)))
+                .thenAnswer(invocation -> {
+                    Review submitted = invocation.getArgument(0);
+                    submitted.setReviewId("abc");
+                    return Mono.just(submitted);
+                });
+
+        // then
+        webTestClient
+                .post()
+                .uri(REVIEWS_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus()
+                .isAccepted()
+                .expectBody(Review.class)
+                .consumeWith(reviewEntityExchangeResult -> {
+                    var acceptedReview = reviewEntityExchangeResult.getResponseBody();
+                    assert acceptedReview != null;
+                    assertEquals("abc", acceptedReview.getReviewId());
+                    assertEquals("Awesome Movie", acceptedReview.getComment());
+                });
+        verify(reviewReactiveRepository, never()).save(any(Review.class));
+        verify(reviewStatsService, never()).ratingAdded(anyLong(), any());
+    }
+
+    @Test
+    void addReview_writeBehindValidation() {
+        // when
+        when(reviewWriteBehindService.isEnabled()).thenReturn(true);
+
+        // then
+        webTestClient
+                .post()
+                .uri(REVIEWS_URL)
+                .bodyValue(new Review(null, null, "Awesome Movie", -9.0))
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+        verify(reviewWriteBehindService, never()).submit(any());
+    }
+
+    @Test
+    void bulkAddReviews() {
+        // given
+        var ndjson = """
+                {"movieInfoId":1,"comment":"Awesome Movie","rating":9.0}
+                {"movieInfoId":null,"comment":"No movie","rating":9.0}
+                """;
+
+        // when
+        when(reviewReactiveRepository.bulkInsert(any())).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+
+        // then
+        webTestClient
+                .post()
+                .uri(REVIEWS_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(ReviewBulkResult.class)
+                .consumeWith(response -> assertEquals(
+                        List.of(ReviewBulkResult.Status.INSERTED, ReviewBulkResult.Status.INVALID),
+                        response.getResponseBody().stream().map(ReviewBulkResult::status).toList()));
+        verify(reviewStatsService).ratingsAdded(1L, List.of(9.0));
     }
 
     @Test
@@ -74,7 +189,7 @@ class ReviewsTest {
                 new Review(null, 2L, "Excellent Movie", 8.0));
 
         // when
-        when(reviewReactiveRepository.findAll()).thenReturn(Flux.fromIterable(reviewsList));
+        when(reviewReactiveRepository.findPage(null, ReviewSort.NEWEST, null, 101)).thenReturn(Flux.fromIterable(reviewsList));
 
         // then
         webTestClient
@@ -87,6 +202,93 @@ class ReviewsTest {
                 .hasSize(3);
     }
 
+    @Test
+    void getReviews_byMovieInfoIds() {
+        // given
+        var reviewsList = List.of(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, 2L, "Excellent Movie", 8.0));
+
+        // when
+        when(reviewReactiveRepository.findPage(List.of(1L, 2L), ReviewSort.NEWEST, null, 101))
+                .thenReturn(Flux.fromIterable(reviewsList));
+
+        // then
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL + "?movieInfoIds=1,2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void getReviews_nextPageFollowsCursor() {
+        // given
+        var firstPage = List.of(
+                new Review("c", 1L, "Awesome Movie", 9.0),
+                new Review("b", 1L, "Good Movie", 7.0),
+                new Review("a", 1L, "Bad Movie", 2.0));
+        when(reviewReactiveRepository.findPage(List.of(1L), ReviewSort.RATING, null, 3))
+                .thenReturn(Flux.fromIterable(firstPage));
+        var cursor = webTestClient
+                .get()
+                .uri(REVIEWS_URL + "?movieInfoId=1&sort=rating&limit=2")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Review.class)
+                .hasSize(2)
+                .returnResult()
+                .getResponseHeaders()
+                .getFirst(ReviewHandler.NEXT_CURSOR_HEADER);
+
+        // when
+        when(reviewReactiveRepository.findPage(List.of(1L), ReviewSort.RATING, new ReviewCursor(ReviewSort.RATING, 7.0, "b"), 3))
+                .thenReturn(Flux.just(firstPage.getLast()));
+
+        // then
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL + "?movieInfoId=1&sort=rating&limit=2&after=" + cursor)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().doesNotExist(ReviewHandler.NEXT_CURSOR_HEADER)
+                .expectBodyList(Review.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getReviews_limitIsCapped() {
+        // when
+        when(reviewReactiveRepository.findPage(null, ReviewSort.NEWEST, null, 1001)).thenReturn(Flux.empty());
+
+        // then
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL + "?limit=1000000")
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    @Test
+    void getReviews_cursorOfAnotherSort() {
+        // given
+        var cursor = new ReviewCursor(ReviewSort.NEWEST, null, "b").encode();
+
+        // then
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL + "?sort=rating&after=" + cursor)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
     @Test
     void updateReview() {
         // given
@@ -94,8 +296,7 @@ class ReviewsTest {
         var existingReview = new Review("id", 1L, "Awesome Movie", 9.0);
 
         // when
-        when(reviewReactiveRepository.findById("id")).thenReturn(Mono.just(existingReview));
-        when(reviewReactiveRepository.save(any(Review.class))).thenReturn(Mono.just(updatedReview));
+        when(reviewReactiveRepository.updateById(eq("id"), any(Update.class))).thenReturn(Mono.just(existingReview));
 
         // then
         webTestClient
@@ -109,8 +310,42 @@ class ReviewsTest {
                 .consumeWith(reviewEntityExchangeResult -> {
                     var updated = reviewEntityExchangeResult.getResponseBody();
                     assert updated != null;
+                    assertEquals("id", updated.getReviewId());
                     assertEquals("Awesome Movie updated", updated.getComment());
                 });
+        verify(reviewStatsService).ratingChanged(1L, 9.0, 9.0);
+        verify(reviewReactiveRepository, never()).findById(anyString());
+        verify(reviewReactiveRepository, never()).save(any(Review.class));
+    }
+
+    @Test
+    void updateReview_notFound() {
+        // when
+        when(reviewReactiveRepository.updateById(eq("id"), any(Update.class))).thenReturn(Mono.empty());
+
+        // then
+        webTestClient
+                .put()
+                .uri(REVIEWS_URL + "/{id}", "id")
+                .bodyValue(new Review(null, 1L, "Awesome Movie updated", 9.0))
+                .exchange()
+                .expectStatus()
+                .isNotFound()
+                .expectBody(String.class)
+                .isEqualTo("Review with id id not found");
+        verify(reviewStatsService, never()).ratingChanged(anyLong(), any(), any());
+    }
+
+    @Test
+    void updateReview_emptyBody() {
+        // then
+        webTestClient
+                .put()
+                .uri(REVIEWS_URL + "/{id}", "id")
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+        verify(reviewReactiveRepository, never()).updateById(anyString(), any(Update.class));
     }
 
     @Test
@@ -119,8 +354,7 @@ class ReviewsTest {
         var existingReview = new Review("id", 1L, "Awesome Movie", 9.0);
 
         // when
-        when(reviewReactiveRepository.findById("id")).thenReturn(Mono.just(existingReview));
-        when(reviewReactiveRepository.deleteById(existingReview.getReviewId())).thenReturn(Mono.empty());
+        when(reviewReactiveRepository.removeById("id")).thenReturn(Mono.just(existingReview));
 
         // then
         webTestClient
@@ -129,6 +363,23 @@ class ReviewsTest {
                 .exchange()
                 .expectStatus()
                 .isNoContent();
+        verify(reviewStatsService).ratingRemoved(1L, 9.0);
+        verify(reviewReactiveRepository, never()).deleteById(anyString());
+    }
+
+    @Test
+    void deleteReview_notFound() {
+        // when
+        when(reviewReactiveRepository.removeById("id")).thenReturn(Mono.empty());
+
+        // then
+        webTestClient
+                .delete()
+                .uri(REVIEWS_URL + "/{id}", "id")
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+        verify(reviewStatsService, never()).ratingRemoved(anyLong(), any());
     }
 
     @Test
@@ -159,4 +410,113 @@ class ReviewsTest {
 
     }
 
+    @Test
+    void getReviews_deadlineExceeded() {
+        // given
+        var cancelled = new AtomicBoolean();
+
+        // when
+        when(reviewReactiveRepository.findPage(null, ReviewSort.NEWEST, null, 101)).thenReturn(Flux.<Review>never()
+                .doOnCancel(() -> cancelled.set(true)));
+
+        // then
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL)
+                .header(DeadlineWebFilter.HEADER, "100")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void getReviews_byMovieInfoId_notModified() {
+        // given
+        when(reviewReactiveRepository.findPage(List.of(1L), ReviewSort.NEWEST, null, 101)).thenAnswer(invocation -> Flux.just(
+                new Review("abc", 1L, "Awesome Movie", 9.0),
+                new Review("def", 1L, "Awesome Movie1", 8.0)));
+        var eTag = webTestClient
+                .get()
+                .uri(REVIEWS_URL + "?movieInfoId=1")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Review.class)
+                .hasSize(2)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        // then
+        assertThat(eTag).isNotNull();
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL + "?movieInfoId=1")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+    }
+
+    @Test
+    void getReviews_byMovieInfoId_changedReviewsAreSent() {
+        // given
+        when(reviewReactiveRepository.findPage(List.of(1L), ReviewSort.NEWEST, null, 101))
+                .thenReturn(Flux.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+        var eTag = webTestClient.get()
+                .uri(REVIEWS_URL + "?movieInfoId=1")
+                .exchange()
+                .returnResult(Review.class)
+                .getResponseHeaders()
+                .getETag();
+
+        // when
+        when(reviewReactiveRepository.findPage(List.of(1L), ReviewSort.NEWEST, null, 101))
+                .thenReturn(Flux.just(new Review("abc", 1L, "Awesome Movie", 7.0)));
+
+        // then
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL + "?movieInfoId=1")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader().value(HttpHeaders.ETAG, value -> assertThat(value).isNotEqualTo(eTag));
+    }
+
+    @Test
+    void getReviewStats() {
+        // when
+        when(reviewStatsService.getStats(1L)).thenReturn(Mono.just(
+                new ReviewStats(1L, 2, 17.0, 8.0, 9.0, Map.of("8", 1L, "9", 1L), 3)));
+
+        // then
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL + "/stats?movieInfoId=1")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.mean").isEqualTo(8.5)
+                .jsonPath("$.min").isEqualTo(8.0)
+                .jsonPath("$.max").isEqualTo(9.0)
+                .jsonPath("$.histogram.9").isEqualTo(1)
+                .jsonPath("$.version").doesNotExist();
+    }
+
+    @Test
+    void getReviewStats_movieInfoIdMissing() {
+        webTestClient
+                .get()
+                .uri(REVIEWS_URL + "/stats")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
 }
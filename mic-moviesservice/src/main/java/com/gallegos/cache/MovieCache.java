@@ -0,0 +1,121 @@
+package com.gallegos.cache;
+
+import com.gallegos.domain.Movie;
+import com.gallegos.filter.RequestDeadline;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Stale-while-revalidate cache of fully assembled {@link Movie}s.
+ * <p>
+ * Entries younger than the soft TTL are served as is. Older entries are still served right away,
+ * while one background refresh per movie replaces them. Entries are dropped after the hard TTL,
+ * so a movie whose refreshes keep failing is eventually loaded again on the request path.
+ * Movies served with {@link Movie#isReviewsPartial() partial reviews} are stored as already stale,
+ * so the next request gets them right away and triggers a refresh for the complete movie.
+ * <p>
+ * A movie embeds all its reviews, so the cache is bounded by weight rather than by entry count:
+ * each entry weighs one plus its number of reviews, and {@code movies.cache.maxWeight} caps the sum.
+ * <p>
+ * A load is shared by every request for the movie, so loads and refreshes run under a deadline of
+ * their own, {@code movies.requestTimeout}, rather than under the first caller's. Each caller still
+ * waits no longer than its own deadline.
+ */
+@Component
+@Slf4j
+public class MovieCache {
+
+    private record Entry(Movie movie, long loadedAtNanos) {
+    }
+
+    private final boolean enabled;
+    private final AsyncCache<String, Entry> movies;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final long softTtlNanos;
+    private final Duration loadTimeout;
+    private final Counter staleServed;
+    private final Counter refreshSuccess;
+    private final Counter refreshFailure;
+
+    public MovieCache(MeterRegistry meterRegistry,
+                      @Value("${movies.cache.enabled:true}") boolean enabled,
+                      @Value("${movies.cache.maxWeight:1000000}") long maxWeight,
+                      @Value("${movies.cache.softTtl:30s}") Duration softTtl,
+                      @Value("${movies.cache.hardTtl:5m}") Duration hardTtl,
+                      @Value("${movies.requestTimeout:5s}") Duration loadTimeout) {
+        this.enabled = enabled;
+        this.movies = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String movieId, Entry entry) -> weight(entry.movie()))
+                .expireAfterWrite(hardTtl)
+                .recordStats()
+                .buildAsync();
+        this.softTtlNanos = softTtl.toNanos();
+        this.loadTimeout = loadTimeout;
+        CaffeineCacheMetrics.monitor(meterRegistry, movies, "movies");
+        this.staleServed = meterRegistry.counter("movies.cache.stale");
+        this.refreshSuccess = meterRegistry.counter("movies.cache.refresh", "result", "success");
+        this.refreshFailure = meterRegistry.counter("movies.cache.refresh", "result", "failure");
+    }
+
+    public Mono<Movie> get(String movieId, Function<String, Mono<Movie>> loader) {
+        if (!enabled) {
+            return loader.apply(movieId);
+        }
+        return Mono.fromFuture(() -> movies.get(movieId,
+                        (id, executor) -> load(id, loader).map(this::newEntry).toFuture()), true)
+                .map(entry -> {
+                    if (System.nanoTime() - entry.loadedAtNanos() > softTtlNanos) {
+                        staleServed.increment();
+                        refresh(movieId, loader);
+                    }
+                    return entry.movie();
+                });
+    }
+
+    private void refresh(String movieId, Function<String, Mono<Movie>> loader) {
+        if (!refreshing.add(movieId)) {
+            return;
+        }
+        load(movieId, loader)
+                .doFinally(signalType -> refreshing.remove(movieId))
+                .subscribe(
+                        movie -> {
+                            refreshSuccess.increment();
+                            movies.put(movieId, CompletableFuture.completedFuture(newEntry(movie)));
+                        },
+                        ex -> {
+                            refreshFailure.increment();
+                            log.warn("Refresh of movie {} failed, serving stale copy: {}", movieId, ex.getMessage());
+                        });
+    }
+
+    private Mono<Movie> load(String movieId, Function<String, Mono<Movie>> loader) {
+        return loader.apply(movieId)
+                .contextWrite(context -> RequestDeadline.put(Context.empty(), System.nanoTime() + loadTimeout.toNanos()));
+    }
+
+    private static int weight(Movie movie) {
+        var reviews = movie.getReviewList() == null ? 0 : movie.getReviewList().size();
+        return 1 + reviews;
+    }
+
+    private Entry newEntry(Movie movie) {
+        var loadedAtNanos = System.nanoTime();
+        return new Entry(movie, movie.isReviewsPartial() ? loadedAtNanos - softTtlNanos - 1 : loadedAtNanos);
+    }
+}
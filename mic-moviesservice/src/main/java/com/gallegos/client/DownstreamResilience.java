@@ -0,0 +1,131 @@
+package com.gallegos.client;
+
+import com.gallegos.config.RestClientProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Guards the calls to one downstream service with a circuit breaker, a concurrency bulkhead,
+ * a timeout and, for idempotent lookups, an optional hedged second attempt.
+ * <p>
+ * Circuit breaker and bulkhead state is published by the registries' Micrometer bindings
+ * ({@code resilience4j.circuitbreaker.*}, {@code resilience4j.bulkhead.*}); call latency and
+ * hedges are published as {@code downstream.latency} and {@code downstream.hedges}.
+ */
+public class DownstreamResilience {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration timeout;
+    private final RestClientProperties.Hedge hedge;
+    private final Timer latency;
+    private final Counter hedges;
+
+    /**
+     * @param ignoredExceptions client errors (e.g. 404) that say nothing about the downstream's health
+     */
+    @SafeVarargs
+    public DownstreamResilience(String name,
+                                RestClientProperties.Downstream downstream,
+                                CircuitBreakerRegistry circuitBreakerRegistry,
+                                BulkheadRegistry bulkheadRegistry,
+                                MeterRegistry meterRegistry,
+                                Class<? extends Throwable>... ignoredExceptions) {
+        var circuitBreakerProperties = downstream.getCircuitBreaker();
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(name, CircuitBreakerConfig.custom()
+                .failureRateThreshold(circuitBreakerProperties.getFailureRateThreshold())
+                .slowCallDurationThreshold(circuitBreakerProperties.getSlowCallDurationThreshold())
+                .slowCallRateThreshold(circuitBreakerProperties.getSlowCallRateThreshold())
+                .slidingWindowSize(circuitBreakerProperties.getSlidingWindowSize())
+                .minimumNumberOfCalls(circuitBreakerProperties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(circuitBreakerProperties.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(circuitBreakerProperties.getPermittedNumberOfCallsInHalfOpenState())
+                .ignoreExceptions(ignoredExceptions)
+                .build());
+        this.bulkhead = bulkheadRegistry.bulkhead(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(downstream.getBulkhead().getMaxConcurrentCalls())
+                .maxWaitDuration(downstream.getBulkhead().getMaxWaitDuration())
+                .build());
+        this.timeout = downstream.getTimeout();
+        this.hedge = downstream.getHedge();
+        this.latency = Timer.builder("downstream.latency")
+                .tag("name", name)
+                .publishPercentiles(hedge.getPercentile())
+                .register(meterRegistry);
+        this.hedges = meterRegistry.counter("downstream.hedges", "name", name);
+    }
+
+    /**
+     * Guards an idempotent single-value call, hedging it when enabled. Each attempt is a separate
+     * subscription to {@code call} and goes through the bulkhead and circuit breaker on its own.
+     * The first attempt to signal wins and the other one is cancelled.
+     */
+    public <T> Mono<T> guard(Supplier<Mono<T>> call, Function<Throwable, Throwable> unavailable) {
+        var attempt = guardedAttempt(call);
+        if (!hedge.isEnabled()) {
+            return attempt.onErrorMap(ex -> isRejection(ex) ? unavailable.apply(ex) : ex);
+        }
+        var hedgedAttempt = Mono.defer(() -> Mono.delay(hedgeDelay())
+                .doOnNext(tick -> hedges.increment())
+                .then(attempt));
+        return Mono.firstWithSignal(attempt, hedgedAttempt)
+                .onErrorMap(ex -> isRejection(ex) ? unavailable.apply(ex) : ex);
+    }
+
+    /**
+     * How long a single call to this downstream may take.
+     */
+    public Duration timeout() {
+        return timeout;
+    }
+
+    public CircuitBreaker.State circuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> Mono<T> guardedAttempt(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            var start = System.nanoTime();
+            return Mono.defer(call)
+                    .timeout(timeout)
+                    .doOnSuccess(value -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        })
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    private Duration hedgeDelay() {
+        var observed = 0.0;
+        for (var percentile : latency.takeSnapshot().percentileValues()) {
+            observed = percentile.value(TimeUnit.NANOSECONDS);
+        }
+        var minDelay = hedge.getMinDelay();
+        return Double.isNaN(observed) || observed < minDelay.toNanos()
+                ? minDelay
+                : Duration.ofNanos((long) observed);
+    }
+
+    private static boolean isRejection(Throwable ex) {
+        return ex instanceof CallNotPermittedException
+                || ex instanceof BulkheadFullException
+                || ex instanceof TimeoutException;
+    }
+}
@@ -2,13 +2,30 @@ package com.gallegos.client;
 
 import com.gallegos.domain.MovieInfo;
 import com.gallegos.exception.MoviesInfoClientException;
+import com.gallegos.exception.MoviesInfoServerException;
+import com.gallegos.filter.RequestDeadline;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Component
 @Slf4j
@@ -19,14 +36,96 @@ public class MoviesInfoRestClient {
     @Value("${restClient.moviesInfoUrl}")
     private String moviesInfoUrl;
 
-    public MoviesInfoRestClient(WebClient webClient) {
+    /**
+     * A cached MovieInfo and the ETag it was served with, if any.
+     */
+    private record CachedMovieInfo(MovieInfo movieInfo, String eTag) {
+    }
+
+    /**
+     * Read-through cache of in-flight and completed lookups. Failed or empty lookups are not kept.
+     * Entries older than {@code revalidateAfter} are still served while they are revalidated in the
+     * background with a conditional GET: a 304 keeps the cached copy without transferring it again.
+     */
+    private AsyncCache<String, CachedMovieInfo> movieInfoCache;
+
+    private DownstreamResilience resilience;
+
+    public MoviesInfoRestClient(@Qualifier("moviesInfoWebClient") WebClient webClient,
+                                @Qualifier("moviesInfoResilience") DownstreamResilience resilience,
+                                MeterRegistry meterRegistry,
+                                @Value("${restClient.moviesInfo.cache.maxSize:10000}") long cacheMaxSize,
+                                @Value("${restClient.moviesInfo.cache.ttl:60s}") Duration cacheTtl,
+                                @Value("${restClient.moviesInfo.cache.revalidateAfter:10s}") Duration cacheRevalidateAfter) {
         this.webClient = webClient;
+        this.resilience = resilience;
+        var cacheBuilder = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats();
+        if (cacheRevalidateAfter.isPositive() && cacheRevalidateAfter.compareTo(cacheTtl) < 0) {
+            cacheBuilder.refreshAfterWrite(cacheRevalidateAfter);
+        }
+        this.movieInfoCache = cacheBuilder.buildAsync(new AsyncCacheLoader<>() {
+            @Override
+            public CompletableFuture<? extends CachedMovieInfo> asyncLoad(String id, Executor executor) {
+                return guardedFetch(id, null).toFuture();
+            }
+
+            @Override
+            public CompletableFuture<? extends CachedMovieInfo> asyncReload(String id, CachedMovieInfo cached, Executor executor) {
+                return guardedFetch(id, cached).toFuture();
+            }
+        });
+        CaffeineCacheMetrics.monitor(meterRegistry, movieInfoCache, "moviesInfo");
     }
 
     public Mono<MovieInfo> retrieveMovieInfoById(String movieId) {
+        // suppressCancel: one caller giving up must not cancel the lookup shared with the others
+        return Mono.fromFuture(() -> movieInfoCache.get(movieId,
+                        (id, executor) -> guardedFetch(id, null).toFuture()), true)
+                .map(CachedMovieInfo::movieInfo);
+    }
+
+    public Flux<MovieInfo> retrieveMovieInfosByIds(List<String> movieIds) {
+        return Mono.fromFuture(() -> movieInfoCache.getAll(movieIds,
+                        (ids, executor) -> resilience.guard(() -> fetchMovieInfosByIds(List.copyOf(ids))
+                                        .collectMap(MovieInfo::getMovieInfoId,
+                                                movieInfo -> new CachedMovieInfo(movieInfo, null)), MoviesInfoRestClient::unavailable)
+                                .contextWrite(this::sharedLoadDeadline)
+                                .toFuture()), true)
+                .flatMapIterable(movieInfos -> movieIds.stream()
+                        .filter(movieInfos::containsKey)
+                        .map(id -> movieInfos.get(id).movieInfo())
+                        .toList());
+    }
+
+    private Mono<CachedMovieInfo> guardedFetch(String movieId, CachedMovieInfo cached) {
+        return resilience.guard(() -> fetchMovieInfoById(movieId, cached), MoviesInfoRestClient::unavailable)
+                .contextWrite(this::sharedLoadDeadline);
+    }
+
+    /**
+     * A cache load is shared by every caller of the key, so it does not run under the first caller's
+     * deadline but under one of its own, the downstream timeout, which it forwards. Each caller still
+     * waits no longer than its own deadline.
+     */
+    private Context sharedLoadDeadline(Context context) {
+        return RequestDeadline.put(Context.empty(), System.nanoTime() + resilience.timeout().toNanos());
+    }
+
+    /**
+     * @param cached the copy to revalidate, or null for a plain lookup
+     */
+    private Mono<CachedMovieInfo> fetchMovieInfoById(String movieId, CachedMovieInfo cached) {
         var url = moviesInfoUrl.concat("/{id}");
         return webClient.get()
                 .uri(url, movieId)
+                .headers(headers -> {
+                    if (cached != null && cached.eTag() != null) {
+                        headers.setIfNoneMatch(cached.eTag());
+                    }
+                })
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError, clientResponse -> {
                     if (clientResponse.statusCode().equals(HttpStatus.NOT_FOUND)) {
@@ -43,7 +142,41 @@ public class MoviesInfoRestClient {
                                             clientResponse.statusCode().value()
                                     )));
                 })
-                .bodyToMono(MovieInfo.class)
+                .onStatus(HttpStatusCode::is5xxServerError, MoviesInfoRestClient::serverError)
+                .toEntity(MovieInfo.class)
+                .flatMap(entity -> entity.getStatusCode().equals(HttpStatus.NOT_MODIFIED) && cached != null
+                        ? Mono.just(cached)
+                        : Mono.justOrEmpty(entity.getBody())
+                                .map(movieInfo -> new CachedMovieInfo(movieInfo, entity.getHeaders().getETag())))
                 .log();
     }
+
+    private Flux<MovieInfo> fetchMovieInfosByIds(List<String> movieIds) {
+        var url = UriComponentsBuilder.fromUriString(moviesInfoUrl)
+                .queryParam("ids", String.join(",", movieIds))
+                .toUriString();
+
+        return webClient.get()
+                .uri(url)
+                .retrieve()
+                .onStatus(HttpStatusCode::is4xxClientError, clientResponse ->
+                        clientResponse.bodyToMono(String.class)
+                                .flatMap(errorMessage ->
+                                        Mono.error(new MoviesInfoClientException(
+                                                errorMessage,
+                                                clientResponse.statusCode().value()
+                                        ))))
+                .onStatus(HttpStatusCode::is5xxServerError, MoviesInfoRestClient::serverError)
+                .bodyToFlux(MovieInfo.class);
+    }
+
+    private static Mono<Throwable> serverError(ClientResponse clientResponse) {
+        return clientResponse.bodyToMono(String.class)
+                .defaultIfEmpty(clientResponse.statusCode().toString())
+                .map(MoviesInfoServerException::new);
+    }
+
+    private static Throwable unavailable(Throwable ex) {
+        return new MoviesInfoServerException("MoviesInfo service unavailable: " + ex);
+    }
 }
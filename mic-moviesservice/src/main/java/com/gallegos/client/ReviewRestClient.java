@@ -1,48 +1,258 @@
 package com.gallegos.client;
 
 import com.gallegos.domain.Review;
+import com.gallegos.exception.ReviewsClientException;
 import com.gallegos.exception.ReviewsServerException;
+import com.gallegos.filter.RequestDeadline;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 @Component
 @Slf4j
 public class ReviewRestClient {
 
+    /**
+     * mic-moviesreview returns reviews page by page, with the cursor of the next page in this header.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int PAGE_SIZE = 1000;
+
     private WebClient webClient;
 
     @Value("${restClient.reviewUrl}")
     private String reviewsUrl;
 
-    public ReviewRestClient(WebClient webClient) {
+    /**
+     * Review lookups currently on the wire, keyed by movie id. Identical requests arriving while
+     * a lookup is in flight subscribe to it instead of issuing their own call.
+     */
+    private final Map<String, Mono<List<Review>>> inFlightReviews = new ConcurrentHashMap<>();
+    /**
+     * Last review list received per movie, with its ETag. It is never served without asking: each
+     * lookup revalidates it with a conditional GET, and a 304 saves transferring the list again.
+     */
+    private final Cache<String, CachedReviews> reviewsCache;
+    private final Counter reviewsRequests;
+    private final Counter reviewsUpstreamCalls;
+
+    private DownstreamResilience resilience;
+
+    private record CachedReviews(List<Review> reviews, String eTag) {
+    }
+
+    private record ReviewPage(List<Review> reviews, String nextCursor) {
+    }
+
+    public ReviewRestClient(@Qualifier("reviewWebClient") WebClient webClient,
+                            @Qualifier("reviewResilience") DownstreamResilience resilience,
+                            MeterRegistry meterRegistry,
+                            @Value("${restClient.review.cache.maxSize:10000}") long cacheMaxSize,
+                            @Value("${restClient.review.cache.ttl:5m}") Duration cacheTtl) {
         this.webClient = webClient;
+        this.resilience = resilience;
+        this.reviewsCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.reviewsRequests = meterRegistry.counter("reviews.coalescing.requests");
+        this.reviewsUpstreamCalls = meterRegistry.counter("reviews.coalescing.upstream");
+        meterRegistry.gauge("reviews.coalescing.inflight", inFlightReviews, Map::size);
+        meterRegistry.gauge("reviews.coalescing.ratio", this, ReviewRestClient::coalescingRatio);
     }
 
     public Flux<Review> retrieveReviews(String movieId) {
+        return Mono.defer(() -> {
+                    reviewsRequests.increment();
+                    return inFlightReviews.computeIfAbsent(movieId, this::coalescedReviews);
+                })
+                .flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Streams the reviews of a movie page by page, without coalescing them, so memory stays bounded
+     * by one page regardless of how many reviews the movie has. Each page fetch is guarded on its
+     * own: a stream holds a bulkhead slot only while a page is on the wire, and the circuit breaker
+     * times page fetches, not how long the caller takes to consume the stream.
+     */
+    public Flux<Review> streamReviews(String movieId) {
+        var url = UriComponentsBuilder.fromUriString(reviewsUrl)
+                .queryParam("movieInfoId", movieId)
+                .queryParam("limit", PAGE_SIZE)
+                .toUriString();
+
+        return retrieveGuardedPages(url);
+    }
+
+    public Flux<Review> retrieveReviewsByMovieInfoIds(List<String> movieIds) {
+        var url = UriComponentsBuilder.fromUriString(reviewsUrl)
+                .queryParam("movieInfoIds", String.join(",", movieIds))
+                .queryParam("limit", PAGE_SIZE)
+                .toUriString();
+
+        return retrieveGuardedPages(url);
+    }
+
+    /**
+     * Requests served per upstream call; 1.0 means no request was coalesced.
+     */
+    public double coalescingRatio() {
+        var upstreamCalls = reviewsUpstreamCalls.count();
+        return upstreamCalls == 0 ? 1.0 : reviewsRequests.count() / upstreamCalls;
+    }
+
+    private Mono<List<Review>> coalescedReviews(String movieId) {
         var url = UriComponentsBuilder.fromUriString(reviewsUrl)
                 .queryParam("movieInfoId", movieId)
+                .queryParam("limit", PAGE_SIZE)
                 .toUriString();
 
+        // The shared call belongs to no caller in particular: it runs under a deadline of its own, the
+        // downstream timeout, which it forwards, and each caller still waits no longer than its own
+        // deadline. The entry is dropped before the result is emitted, so only in-flight requests are
+        // merged, and again however the call ends, cancellation included, so later requests never
+        // join a call that will not complete. Only this call's own entry is dropped, never a newer one.
+        var shared = new AtomicReference<Mono<List<Review>>>();
+        shared.set(resilience.guard(() -> {
+                    reviewsUpstreamCalls.increment();
+                    return revalidateReviews(url, reviewsCache.getIfPresent(movieId));
+                }, ReviewRestClient::unavailable)
+                .doOnNext(fetched -> {
+                    if (fetched.eTag() != null) {
+                        reviewsCache.put(movieId, fetched);
+                    }
+                })
+                .map(CachedReviews::reviews)
+                .doOnTerminate(() -> inFlightReviews.remove(movieId, shared.get()))
+                .doFinally(signal -> inFlightReviews.remove(movieId, shared.get()))
+                .contextWrite(context -> RequestDeadline.put(Context.empty(),
+                        System.nanoTime() + resilience.timeout().toNanos()))
+                .cache());
+        return shared.get();
+    }
+
+    /**
+     * Only a list that fits in one page is revalidated: the ETag of a first page says nothing of the
+     * pages after it, so longer lists are fetched in full and not cached.
+     *
+     * @param cached the copy to revalidate, or null for a plain lookup
+     */
+    private Mono<CachedReviews> revalidateReviews(String url, CachedReviews cached) {
         return webClient.get()
                 .uri(url)
-                .exchangeToFlux(response -> {
+                .headers(headers -> {
+                    if (cached != null) {
+                        headers.setIfNoneMatch(cached.eTag());
+                    }
+                })
+                .exchangeToMono(response -> {
+
+                    if (response.statusCode().equals(HttpStatus.NOT_MODIFIED) && cached != null) {
+                        return response.releaseBody().thenReturn(cached);
+                    }
+
+                    if (response.statusCode().equals(HttpStatus.NOT_FOUND)) {
+                        return response.releaseBody().thenReturn(new CachedReviews(List.of(), null));
+                    }
+
+                    if (response.statusCode().is4xxClientError()) {
+                        return clientError(response);
+                    }
+
+                    if (response.statusCode().is5xxServerError()) {
+                        return response.bodyToMono(String.class)
+                                .flatMap(msg -> Mono.error(new ReviewsServerException(msg)));
+                    }
+
+                    var headers = response.headers().asHttpHeaders();
+                    var nextCursor = headers.getFirst(NEXT_CURSOR_HEADER);
+                    return response.bodyToFlux(Review.class)
+                            .collectList()
+                            .flatMap(reviews -> nextCursor == null
+                                    ? Mono.just(new CachedReviews(reviews, headers.getETag()))
+                                    : retrieveReviewPages(url, new ReviewPage(reviews, nextCursor))
+                                            .collectList()
+                                            .map(allReviews -> new CachedReviews(allReviews, null)));
+                });
+    }
+
+    /**
+     * Any other 4xx is a request this client got wrong: it is reported rather than read as reviews.
+     */
+    private static <T> Mono<T> clientError(ClientResponse response) {
+        return response.bodyToMono(String.class)
+                .defaultIfEmpty(response.statusCode().toString())
+                .flatMap(msg -> Mono.error(new ReviewsClientException(msg)));
+    }
+
+    private static Throwable unavailable(Throwable ex) {
+        return new ReviewsServerException("Reviews service unavailable: " + ex);
+    }
+
+    private Flux<Review> retrieveGuardedPages(String url) {
+        return retrieveGuardedPage(url, null)
+                .expand(page -> page.nextCursor() == null ? Mono.empty() : retrieveGuardedPage(url, page.nextCursor()))
+                .concatMapIterable(ReviewPage::reviews);
+    }
+
+    private Mono<ReviewPage> retrieveGuardedPage(String url, String after) {
+        return resilience.guard(() -> retrieveReviewPage(url, after), ReviewRestClient::unavailable);
+    }
+
+    /**
+     * The reviews of {@code firstPage} followed by those of the pages after it, each page being
+     * requested once the previous one is consumed.
+     */
+    private Flux<Review> retrieveReviewPages(String url, ReviewPage firstPage) {
+        return Mono.just(firstPage)
+                .expand(page -> page.nextCursor() == null ? Mono.empty() : retrieveReviewPage(url, page.nextCursor()))
+                .concatMapIterable(ReviewPage::reviews);
+    }
+
+    private Mono<ReviewPage> retrieveReviewPage(String url, String after) {
+        var pageUrl = after == null ? url : UriComponentsBuilder.fromUriString(url)
+                .queryParam("after", after)
+                .toUriString();
+        return webClient.get()
+                .uri(pageUrl)
+                .exchangeToMono(response -> {
 
                     if (response.statusCode().equals(HttpStatus.NOT_FOUND)) {
-                        return Flux.empty();
+                        return response.releaseBody().thenReturn(new ReviewPage(List.of(), null));
+                    }
+
+                    if (response.statusCode().is4xxClientError()) {
+                        return clientError(response);
                     }
 
                     if (response.statusCode().is5xxServerError()) {
                         return response.bodyToMono(String.class)
-                                .flatMapMany(msg ->
-                                        Flux.error(new ReviewsServerException(msg)));
+                                .flatMap(msg -> Mono.error(new ReviewsServerException(msg)));
                     }
 
-                    return response.bodyToFlux(Review.class);
+                    var nextCursor = response.headers().asHttpHeaders().getFirst(NEXT_CURSOR_HEADER);
+                    return response.bodyToFlux(Review.class)
+                            .collectList()
+                            .map(reviews -> new ReviewPage(reviews, nextCursor));
                 });
     }
 }
@@ -0,0 +1,48 @@
+package com.gallegos.config;
+
+import com.gallegos.client.DownstreamResilience;
+import com.gallegos.exception.MoviesInfoClientException;
+import com.gallegos.exception.ReviewsClientException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        var registry = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry(MeterRegistry meterRegistry) {
+        var registry = BulkheadRegistry.ofDefaults();
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public DownstreamResilience moviesInfoResilience(RestClientProperties restClientProperties,
+                                                     CircuitBreakerRegistry circuitBreakerRegistry,
+                                                     BulkheadRegistry bulkheadRegistry,
+                                                     MeterRegistry meterRegistry) {
+        return new DownstreamResilience("moviesInfo", restClientProperties.getMoviesInfo(),
+                circuitBreakerRegistry, bulkheadRegistry, meterRegistry, MoviesInfoClientException.class);
+    }
+
+    @Bean
+    public DownstreamResilience reviewResilience(RestClientProperties restClientProperties,
+                                                 CircuitBreakerRegistry circuitBreakerRegistry,
+                                                 BulkheadRegistry bulkheadRegistry,
+                                                 MeterRegistry meterRegistry) {
+        return new DownstreamResilience("review", restClientProperties.getReview(),
+                circuitBreakerRegistry, bulkheadRegistry, meterRegistry, ReviewsClientException.class);
+    }
+}
@@ -0,0 +1,104 @@
+package com.gallegos.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection settings of each downstream service, bound from {@code restClient.moviesInfo.*}
+ * and {@code restClient.review.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "rest-client")
+public class RestClientProperties {
+
+    private Downstream moviesInfo = new Downstream();
+    private Downstream review = new Downstream();
+
+    @Data
+    public static class Downstream {
+
+        /** Maximum number of pooled connections to the downstream. */
+        private int maxConnections = 500;
+
+        /** Maximum number of requests waiting for a connection; further requests fail fast. */
+        private int pendingAcquireMaxCount = 1000;
+
+        /** How long a request may wait for a connection from the pool. */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /** Idle connections older than this are closed. */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        /** Connections are closed once they reach this age, even when busy. */
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        /** Interval of the background eviction of idle/expired connections; zero disables it. */
+        private Duration evictInBackground = Duration.ofSeconds(30);
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        private boolean keepAlive = true;
+
+        private boolean tcpNoDelay = true;
+
+        /** Negotiate HTTP/2 cleartext (h2c) with the downstream, falling back to HTTP/1.1. */
+        private boolean http2 = false;
+
+        /** Upper bound of a single call, from sending the request to the end of the response. */
+        private Duration timeout = Duration.ofSeconds(2);
+
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private Bulkhead bulkhead = new Bulkhead();
+        private Hedge hedge = new Hedge();
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        /** Failure percentage over the sliding window that opens the circuit. */
+        private float failureRateThreshold = 50;
+
+        /** Calls slower than this count as slow calls. */
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(1);
+
+        /** Slow call percentage over the sliding window that opens the circuit. */
+        private float slowCallRateThreshold = 80;
+
+        /** Number of most recent calls the rates are computed over. */
+        private int slidingWindowSize = 50;
+
+        /** Calls needed in the window before the rates are evaluated. */
+        private int minimumNumberOfCalls = 20;
+
+        /** How long the circuit stays open before letting trial calls through. */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+        /** Trial calls allowed while half open. */
+        private int permittedNumberOfCallsInHalfOpenState = 5;
+    }
+
+    @Data
+    public static class Bulkhead {
+
+        /** Maximum number of concurrent calls to the downstream. */
+        private int maxConcurrentCalls = 200;
+
+        /** How long a call may wait for a free slot; zero rejects immediately. */
+        private Duration maxWaitDuration = Duration.ZERO;
+    }
+
+    @Data
+    public static class Hedge {
+
+        /** Send a second attempt when the first one has not answered after the hedge delay. */
+        private boolean enabled = false;
+
+        /** Latency percentile of recent successful calls used as the hedge delay. */
+        private double percentile = 0.95;
+
+        /** Lower bound of the hedge delay, also used until enough latencies are recorded. */
+        private Duration minDelay = Duration.ofMillis(50);
+    }
+}
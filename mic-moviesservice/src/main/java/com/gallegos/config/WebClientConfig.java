@@ -1,20 +1,65 @@
 package com.gallegos.config;
 
+import com.gallegos.filter.RequestDeadline;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
+@EnableConfigurationProperties(RestClientProperties.class)
 public class WebClientConfig {
 
+    /**
+     * Shared by every downstream WebClient, so all of them forward the request deadline.
+     */
     @Bean
     public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+        return WebClient.builder()
+                .filter(RequestDeadline.propagate());
     }
 
     @Bean
-    public WebClient webClient(WebClient.Builder builder) {
-        return builder.build();
+    public WebClient moviesInfoWebClient(WebClient.Builder builder, RestClientProperties restClientProperties) {
+        return buildWebClient(builder, "moviesInfo", restClientProperties.getMoviesInfo());
     }
 
+    @Bean
+    public WebClient reviewWebClient(WebClient.Builder builder, RestClientProperties restClientProperties) {
+        return buildWebClient(builder, "review", restClientProperties.getReview());
+    }
+
+    /**
+     * Every downstream gets its own connection pool, so a slow service cannot starve the other one.
+     * Pool gauges are published as {@code reactor.netty.connection.provider.*} tagged with {@code name}.
+     */
+    public static WebClient buildWebClient(WebClient.Builder builder, String name,
+                                           RestClientProperties.Downstream downstream) {
+        var connectionProvider = ConnectionProvider.builder(name)
+                .maxConnections(downstream.getMaxConnections())
+                .pendingAcquireMaxCount(downstream.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(downstream.getPendingAcquireTimeout())
+                .maxIdleTime(downstream.getMaxIdleTime())
+                .maxLifeTime(downstream.getMaxLifeTime())
+                .evictInBackground(downstream.getEvictInBackground())
+                .metrics(true)
+                .build();
+
+        var httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) downstream.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, downstream.isKeepAlive())
+                .option(ChannelOption.TCP_NODELAY, downstream.isTcpNoDelay());
+        if (downstream.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
 }
@@ -1,30 +1,199 @@
 package com.gallegos.controller;
 
 import com.gallegos.client.MoviesInfoRestClient;
+import com.gallegos.cache.MovieCache;
 import com.gallegos.client.ReviewRestClient;
 import com.gallegos.domain.Movie;
-import lombok.AllArgsConstructor;
+import com.gallegos.domain.MovieInfo;
+import com.gallegos.domain.Review;
+import com.gallegos.exception.ReviewsServerException;
+import com.gallegos.filter.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/v1/movies")
-@AllArgsConstructor
 public class MoviesController {
 
+    /**
+     * How the MovieInfo and Review lookups of a single movie are issued.
+     * <ul>
+     *     <li>SEQUENTIAL: reviews are requested once the MovieInfo has been retrieved.</li>
+     *     <li>PARALLEL: both lookups start together and both run to completion, so the
+     *     reviews connection goes back to the pool even when the MovieInfo lookup fails.</li>
+     *     <li>SPECULATIVE: both lookups start together and the reviews lookup is cancelled
+     *     as soon as the MovieInfo lookup fails.</li>
+     * </ul>
+     * In every mode the MovieInfo lookup decides the outcome: its error (e.g. 404) wins over
+     * any reviews error.
+     */
+    public enum FanOutMode {
+        SEQUENTIAL, PARALLEL, SPECULATIVE
+    }
+
+    /**
+     * Outcome of the reviews leg: either the complete list, or whatever is known (nothing) when the
+     * leg blew its latency budget or mic-moviesreview was unavailable.
+     */
+    private record Reviews(List<Review> list, boolean partial) {
+    }
+
     private MoviesInfoRestClient moviesInfoRestClient;
     private ReviewRestClient reviewRestClient;
+    private MovieCache movieCache;
+    private FanOutMode fanOutMode;
+    private int batchChunkSize;
+    private Duration reviewsBudget;
+    private Counter degradedByTimeout;
+    private Counter degradedByUnavailable;
+
+    public MoviesController(MoviesInfoRestClient moviesInfoRestClient,
+                            ReviewRestClient reviewRestClient,
+                            MovieCache movieCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${movies.fanOutMode:PARALLEL}") FanOutMode fanOutMode,
+                            @Value("${movies.batchChunkSize:100}") int batchChunkSize,
+                            @Value("${movies.reviewsBudget:800ms}") Duration reviewsBudget) {
+        this.moviesInfoRestClient = moviesInfoRestClient;
+        this.reviewRestClient = reviewRestClient;
+        this.movieCache = movieCache;
+        this.fanOutMode = fanOutMode;
+        this.batchChunkSize = batchChunkSize;
+        this.reviewsBudget = reviewsBudget;
+        this.degradedByTimeout = meterRegistry.counter("movies.degraded", "reason", "timeout");
+        this.degradedByUnavailable = meterRegistry.counter("movies.degraded", "reason", "unavailable");
+    }
+
+    @GetMapping
+    public Flux<Movie> retrieveMoviesByIds(@RequestParam("ids") List<String> movieIds) {
+        return retrieveMovies(movieIds);
+    }
+
+    @PostMapping("/batch")
+    public Flux<Movie> retrieveMoviesByIdsBatch(@RequestBody List<String> movieIds) {
+        return retrieveMovies(movieIds);
+    }
 
     @GetMapping("/{id}")
     public Mono<Movie> retrieveMovieById(@PathVariable("id") String movieId) {
+        return movieCache.get(movieId, this::aggregateMovie);
+    }
+
+    private Mono<Movie> aggregateMovie(String movieId) {
+        var movieInfoMono = moviesInfoRestClient.retrieveMovieInfoById(movieId);
+        var reviewsListMono = withinBudget(reviewRestClient.retrieveReviews(movieId)
+                .collectList());
+
+        return switch (fanOutMode) {
+            case SEQUENTIAL -> movieInfoMono
+                    .flatMap(movieInfo -> reviewsListMono.map(reviews -> toMovie(movieInfo, reviews)));
+            case PARALLEL -> Mono.zip(movieInfoMono.materialize(), reviewsListMono.materialize())
+                    .flatMap(signals -> toMovie(signals.getT1(), signals.getT2()));
+            case SPECULATIVE -> Mono.zip(movieInfoMono, reviewsListMono.materialize())
+                    .flatMap(tuple -> toMovie(Signal.next(tuple.getT1()), tuple.getT2()));
+        };
+    }
+
+    /**
+     * Streams a movie as NDJSON: the first line is the {@link MovieInfo}, every following line is
+     * one {@link Review}. Reviews are relayed with backpressure as they arrive from mic-moviesreview,
+     * so nothing is collected in memory and the first byte is sent as soon as the MovieInfo is known.
+     * The request deadline only bounds that first line; review pages are fetched without it.
+     */
+    @GetMapping(value = "/{id}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> streamMovieById(@PathVariable("id") String movieId) {
         return moviesInfoRestClient.retrieveMovieInfoById(movieId)
-                .flatMap(moviesInfo -> {
-                    var reviewsListMono = reviewRestClient.retrieveReviews(movieId)
-                            .collectList();
-                    return reviewsListMono.map(reviews -> new Movie(moviesInfo, reviews));
+                .flatMapMany(movieInfo -> Flux.concat(
+                        Mono.just(movieInfo),
+                        reviewRestClient.streamReviews(movieId).contextWrite(RequestDeadline::clear)));
+    }
+
+    /**
+     * Resolves all movies with one multi-id call per downstream (split in chunks of
+     * {@code movies.batchChunkSize} ids to keep the query string bounded) and joins the
+     * results in memory, preserving the requested order. Unknown ids are skipped.
+     */
+    private Flux<Movie> retrieveMovies(List<String> movieIds) {
+        var distinctIds = movieIds.stream()
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .toList();
+        if (distinctIds.isEmpty()) {
+            return Flux.empty();
+        }
+        var chunks = Flux.fromIterable(distinctIds)
+                .buffer(batchChunkSize);
+
+        var movieInfosMono = chunks
+                .flatMap(moviesInfoRestClient::retrieveMovieInfosByIds)
+                .collectMap(MovieInfo::getMovieInfoId);
+        var reviewsMono = withinBudget(chunks
+                .flatMap(reviewRestClient::retrieveReviewsByMovieInfoIds)
+                .collectList());
+
+        return Mono.zip(movieInfosMono, reviewsMono)
+                .flatMapIterable(tuple -> {
+                    var reviewsById = tuple.getT2().list().stream()
+                            .collect(Collectors.groupingBy(review -> String.valueOf(review.getMovieInfoId())));
+                    return distinctIds.stream()
+                            .filter(tuple.getT1()::containsKey)
+                            .map(id -> new Movie(tuple.getT1().get(id),
+                                    reviewsById.getOrDefault(id, List.of()), tuple.getT2().partial()))
+                            .toList();
                 });
     }
+
+    /**
+     * Bounds the reviews leg by {@code movies.reviewsBudget}. Past the budget, or when
+     * mic-moviesreview is unavailable, the leg completes with an empty partial result so the
+     * movie is still served on time; client errors keep propagating.
+     */
+    private Mono<Reviews> withinBudget(Mono<List<Review>> reviews) {
+        return reviews
+                .map(list -> new Reviews(list, false))
+                .timeout(reviewsBudget)
+                .onErrorResume(TimeoutException.class, ex -> {
+                    degradedByTimeout.increment();
+                    return Mono.just(new Reviews(List.of(), true));
+                })
+                .onErrorResume(ReviewsServerException.class, ex -> {
+                    degradedByUnavailable.increment();
+                    return Mono.just(new Reviews(List.of(), true));
+                });
+    }
+
+    private static Movie toMovie(MovieInfo movieInfo, Reviews reviews) {
+        return new Movie(movieInfo, reviews.list(), reviews.partial());
+    }
+
+    private static Mono<Movie> toMovie(Signal<MovieInfo> movieInfoSignal, Signal<Reviews> reviewsSignal) {
+        if (movieInfoSignal.isOnError()) {
+            return Mono.error(movieInfoSignal.getThrowable());
+        }
+        if (!movieInfoSignal.hasValue()) {
+            return Mono.empty();
+        }
+        if (reviewsSignal.isOnError()) {
+            return Mono.error(reviewsSignal.getThrowable());
+        }
+        return Mono.just(toMovie(movieInfoSignal.get(), reviewsSignal.get()));
+    }
 }
@@ -14,4 +14,13 @@ public class Movie {
 
     private MovieInfo movieInfo;
     private List<Review> reviewList;
+    /**
+     * True when the reviews could not be retrieved within the latency budget (or mic-moviesreview
+     * was unavailable) and {@link #reviewList} is incomplete.
+     */
+    private boolean reviewsPartial;
+
+    public Movie(MovieInfo movieInfo, List<Review> reviewList) {
+        this(movieInfo, reviewList, false);
+    }
 }
@@ -0,0 +1,63 @@
+package com.gallegos.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gives every request a deadline: {@code movies.requestTimeout} from now, or the caller's own
+ * {@value RequestDeadline#HEADER} if that is sooner. Once the deadline passes the whole pipeline,
+ * downstream calls included, is cancelled and the caller gets a 504. The deadline is published in
+ * the Reactor context so the WebClients forward it (see {@link RequestDeadline#propagate()}).
+ * <p>
+ * The deadline covers the time to the first byte only: once the response is committed, streaming
+ * routes such as NDJSON keep writing for as long as the body takes.
+ */
+@Component
+@Slf4j
+public class DeadlineWebFilter implements WebFilter {
+
+    private final Duration requestTimeout;
+
+    public DeadlineWebFilter(@Value("${movies.requestTimeout:5s}") Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var budget = RequestDeadline.parse(exchange.getRequest().getHeaders().getFirst(RequestDeadline.HEADER))
+                .filter(callerBudget -> callerBudget.compareTo(requestTimeout) < 0)
+                .orElse(requestTimeout);
+        if (budget.isNegative() || budget.isZero()) {
+            return gatewayTimeout(exchange);
+        }
+        var deadlineNanos = System.nanoTime() + budget.toNanos();
+        var committed = new AtomicBoolean();
+        exchange.getResponse().beforeCommit(() -> {
+            committed.set(true);
+            return Mono.empty();
+        });
+
+        return chain.filter(exchange)
+                .timeout(Mono.delay(budget).flatMap(tick -> committed.get() ? Mono.never() : Mono.just(tick)))
+                .onErrorResume(TimeoutException.class, ex -> {
+                    log.warn("Request {} exceeded its {}ms deadline", exchange.getRequest().getPath(), budget.toMillis());
+                    return exchange.getResponse().isCommitted() ? Mono.error(ex) : gatewayTimeout(exchange);
+                })
+                .contextWrite(context -> RequestDeadline.put(context, deadlineNanos));
+    }
+
+    private static Mono<Void> gatewayTimeout(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+        return exchange.getResponse().setComplete();
+    }
+}
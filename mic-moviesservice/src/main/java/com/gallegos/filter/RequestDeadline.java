@@ -0,0 +1,68 @@
+package com.gallegos.filter;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Deadline of the request being served, carried in the Reactor {@link Context}
+ * as a {@link System#nanoTime()} instant.
+ * <p>
+ * Between services the deadline travels as the remaining budget in milliseconds in the
+ * {@value #HEADER} header, so the hosts' clocks do not need to agree.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final String CONTEXT_KEY = RequestDeadline.class.getName();
+
+    private RequestDeadline() {
+    }
+
+    public static Context put(Context context, long deadlineNanos) {
+        return context.put(CONTEXT_KEY, deadlineNanos);
+    }
+
+    /**
+     * Removes the deadline, for work that outlives the request's time to first byte.
+     */
+    public static Context clear(Context context) {
+        return context.delete(CONTEXT_KEY);
+    }
+
+    /**
+     * Time left before the deadline of the current request, if it has one. May be zero or negative.
+     */
+    public static Optional<Duration> remaining(ContextView context) {
+        return context.<Long>getOrEmpty(CONTEXT_KEY)
+                .map(deadlineNanos -> Duration.ofNanos(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Parses a {@value #HEADER} value; malformed values are ignored.
+     */
+    public static Optional<Duration> parse(String header) {
+        try {
+            return Optional.ofNullable(header).map(value -> Duration.ofMillis(Long.parseLong(value.trim())));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Forwards the remaining budget of the current request on every outgoing call.
+     */
+    public static ExchangeFilterFunction propagate() {
+        return (request, next) -> Mono.deferContextual(context -> remaining(context)
+                .map(remaining -> next.exchange(ClientRequest.from(request)
+                        .header(HEADER, String.valueOf(Math.max(remaining.toMillis(), 0)))
+                        .build()))
+                .orElseGet(() -> next.exchange(request)));
+    }
+}
@@ -0,0 +1,157 @@
+package com.gallegos.unit.cache;
+
+import com.gallegos.cache.MovieCache;
+import com.gallegos.domain.Movie;
+import com.gallegos.domain.MovieInfo;
+import com.gallegos.domain.Review;
+import com.gallegos.filter.RequestDeadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovieCacheTest {
+
+    private static final Duration SOFT_TTL = Duration.ofMillis(100);
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(5);
+
+    private SimpleMeterRegistry meterRegistry;
+    private MovieCache movieCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        movieCache = new MovieCache(meterRegistry, true, 100, SOFT_TTL, Duration.ofMinutes(1), LOAD_TIMEOUT);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_freshEntryIsServedWithoutLoading() {
+        // when
+        movieCache.get("1", this::slowLoader).block();
+        var movie = movieCache.get("1", this::slowLoader).block();
+
+        // then
+        assertEquals("version 1", movie.getMovieInfo().getName());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_sharedLoadDoesNotRunUnderFirstCallersDeadline() {
+        // given
+        var callerDeadlineNanos = System.nanoTime() + Duration.ofMillis(100).toNanos();
+        var loadBudget = new AtomicReference<Duration>();
+
+        // when
+        movieCache.get("1", movieId -> Mono.deferContextual(context -> {
+                    RequestDeadline.remaining(context).ifPresent(loadBudget::set);
+                    return slowLoader(movieId);
+                }))
+                .contextWrite(context -> RequestDeadline.put(context, callerDeadlineNanos))
+                .block();
+
+        // then the load got a budget of its own, not what was left of the caller's
+        assertThat(loadBudget.get()).isGreaterThan(LOAD_TIMEOUT.dividedBy(2));
+    }
+
+    @Test
+    void get_staleEntryIsServedImmediatelyAndRefreshedOnce() throws InterruptedException {
+        // given
+        movieCache.get("1", this::slowLoader).block();
+        Thread.sleep(SOFT_TTL.toMillis() * 2);
+
+        // when concurrent requests arrive after the soft TTL
+        var start = System.nanoTime();
+        var movies = Flux.range(0, 20)
+                .flatMap(i -> movieCache.get("1", this::slowLoader))
+                .collectList()
+                .block();
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // then they get the stale copy without waiting for the loader, which runs only once
+        assertEquals(20, movies.size());
+        movies.forEach(movie -> assertEquals("version 1", movie.getMovieInfo().getName()));
+        assertTrue(elapsed.compareTo(Duration.ofMillis(200)) < 0);
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() ->
+                assertEquals("version 2", movieCache.get("1", this::slowLoader).block().getMovieInfo().getName()));
+        assertEquals(2, loads.get());
+        assertTrue(meterRegistry.get("movies.cache.stale").counter().count() >= 20);
+        assertEquals(1.0, meterRegistry.get("movies.cache.refresh").tag("result", "success").counter().count());
+    }
+
+    @Test
+    void get_failedRefreshKeepsServingStaleCopy() throws InterruptedException {
+        // given
+        movieCache.get("1", this::slowLoader).block();
+        Thread.sleep(SOFT_TTL.toMillis() * 2);
+
+        // when
+        var movie = movieCache.get("1", id -> Mono.error(new RuntimeException("reviews down"))).block();
+
+        // then
+        assertEquals("version 1", movie.getMovieInfo().getName());
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() ->
+                assertEquals(1.0, meterRegistry.get("movies.cache.refresh").tag("result", "failure").counter().count()));
+    }
+
+    @Test
+    void get_partialMovieIsRefreshedOnNextRequest() {
+        // given
+        var movieInfo = new MovieInfo("1", "version 1", 2005, List.of("Christian Bale"), null);
+        movieCache.get("1", id -> Mono.just(new Movie(movieInfo, List.of(), true))).block();
+
+        // when
+        var movie = movieCache.get("1", this::slowLoader).block();
+
+        // then the partial copy is served once while the complete movie is loaded in the background
+        assertTrue(movie.isReviewsPartial());
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() ->
+                assertFalse(movieCache.get("1", this::slowLoader).block().isReviewsPartial()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_entriesAreBoundedByTheirReviewCount() {
+        // given: the cache holds 100 units and each movie weighs 61
+        var reviews = IntStream.range(0, 60)
+                .mapToObj(i -> new Review(String.valueOf(i), 1L, "Review " + i, 8.0))
+                .toList();
+        Function<String, Mono<Movie>> loader = movieId -> {
+            loads.incrementAndGet();
+            return Mono.just(new Movie(new MovieInfo(movieId, "Batman Begins", 2005, List.of(), null), reviews));
+        };
+
+        // when
+        movieCache.get("1", loader).block();
+        movieCache.get("2", loader).block();
+
+        // then only one of them is kept
+        var cacheSize = meterRegistry.get("cache.size").tag("cache", "movies").gauge();
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertEquals(1.0, cacheSize.value()));
+        assertEquals(2, loads.get());
+    }
+
+    private Mono<Movie> slowLoader(String movieId) {
+        return Mono.delay(Duration.ofMillis(300))
+                .map(tick -> {
+                    var version = loads.incrementAndGet();
+                    var movieInfo = new MovieInfo(movieId, "version " + version, 2005, List.of("Christian Bale"), null);
+                    return new Movie(movieInfo, List.of());
+                });
+    }
+}
@@ -0,0 +1,62 @@
+package com.gallegos.unit.client;
+
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConditionalRevalidationTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    @Test
+    void retrieveMovieInfoById_revalidatesStaleCopyWithETag() throws InterruptedException {
+        try (var moviesInfoBackend = StubBackend.jsonWithETag("/v1/movieinfos/{id}", ETAG, """
+                {"movieInfoId":"abc","name":"Batman Begins","year":2005,"cast":["Christian Bale"]}
+                """)) {
+            // given
+            var moviesInfoRestClient = TestClients.moviesInfoRestClient(moviesInfoBackend, new SimpleMeterRegistry(),
+                    Duration.ofMinutes(1), Duration.ofMillis(100));
+            moviesInfoRestClient.retrieveMovieInfoById("abc").block();
+
+            // when
+            Thread.sleep(200);
+            var stale = moviesInfoRestClient.retrieveMovieInfoById("abc").block();
+            await().atMost(Duration.ofSeconds(5)).until(() -> moviesInfoBackend.requestCount() == 2);
+            var revalidated = moviesInfoRestClient.retrieveMovieInfoById("abc").block();
+
+            // then
+            assertEquals("Batman Begins", stale.getName());
+            assertEquals("Batman Begins", revalidated.getName());
+            assertNull(moviesInfoBackend.requestHeaders().get(0).getFirst(HttpHeaders.IF_NONE_MATCH));
+            assertEquals(ETAG, moviesInfoBackend.requestHeaders().get(1).getFirst(HttpHeaders.IF_NONE_MATCH));
+            assertEquals(2, moviesInfoBackend.requestCount());
+        }
+    }
+
+    @Test
+    void retrieveReviews_revalidatesLastListWithETag() {
+        try (var reviewsBackend = StubBackend.jsonWithETag("/v1/reviews", ETAG, """
+                [{"reviewId":"1","movieInfoId":1,"comment":"Awesome Movie","rating":9.0}]
+                """)) {
+            // given
+            var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, new SimpleMeterRegistry());
+
+            // when
+            var first = reviewRestClient.retrieveReviews("1").collectList().block();
+            var second = reviewRestClient.retrieveReviews("1").collectList().block();
+
+            // then
+            assertEquals(first, second);
+            assertEquals(1, second.size());
+            assertEquals(ETAG, reviewsBackend.requestHeaders().get(1).getFirst(HttpHeaders.IF_NONE_MATCH));
+        }
+    }
+}
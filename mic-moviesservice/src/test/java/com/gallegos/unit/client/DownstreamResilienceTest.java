@@ -0,0 +1,106 @@
+package com.gallegos.unit.client;
+
+import com.gallegos.config.RestClientProperties;
+import com.gallegos.exception.ReviewsServerException;
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DownstreamResilienceTest {
+
+    private static final String REVIEWS_JSON = """
+            [{"reviewId":"a","movieInfoId":1,"comment":"Awesome Movie","rating":9.0}]
+            """;
+
+    private StubBackend reviewsBackend;
+
+    @AfterEach
+    void tearDown() {
+        reviewsBackend.close();
+    }
+
+    @Test
+    void circuitBreaker_opensAndStopsCallingFailingDownstream() {
+        // given
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 500, "reviews down");
+        var downstream = new RestClientProperties.Downstream();
+        downstream.getCircuitBreaker().setSlidingWindowSize(5);
+        downstream.getCircuitBreaker().setMinimumNumberOfCalls(5);
+        var meterRegistry = new SimpleMeterRegistry();
+        var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, downstream, meterRegistry);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> reviewRestClient.retrieveReviews("1").blockLast())
+                    .isInstanceOf(ReviewsServerException.class);
+        }
+
+        // then only the calls needed to open the circuit reached the backend
+        assertThat(reviewsBackend.requestCount()).isEqualTo(5);
+    }
+
+    @Test
+    void timeout_failsSlowCalls() {
+        // given
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ofSeconds(2), 200, REVIEWS_JSON);
+        var downstream = new RestClientProperties.Downstream();
+        downstream.setTimeout(Duration.ofMillis(200));
+        var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, downstream, new SimpleMeterRegistry());
+
+        // when
+        var start = System.nanoTime();
+        assertThatThrownBy(() -> reviewRestClient.retrieveReviews("1").blockLast())
+                .isInstanceOf(ReviewsServerException.class)
+                .hasMessageContaining("unavailable");
+
+        // then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void bulkhead_rejectsCallsBeyondConcurrencyLimit() {
+        // given
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ofMillis(300), 200, REVIEWS_JSON);
+        var downstream = new RestClientProperties.Downstream();
+        downstream.getBulkhead().setMaxConcurrentCalls(1);
+        var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, downstream, new SimpleMeterRegistry());
+
+        // when two different movies are requested concurrently
+        var first = reviewRestClient.retrieveReviews("1").collectList().toFuture();
+        assertThatThrownBy(() -> reviewRestClient.retrieveReviews("2").blockLast())
+                .isInstanceOf(ReviewsServerException.class);
+
+        // then
+        assertThat(first.join()).hasSize(1);
+        assertThat(reviewsBackend.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void hedge_sendsSecondAttemptWhenFirstIsSlow() {
+        // given the first request hangs, later ones answer immediately
+        reviewsBackend = StubBackend.json("/v1/reviews",
+                requestNumber -> requestNumber == 1 ? Duration.ofSeconds(1) : Duration.ZERO, 200, REVIEWS_JSON);
+        var downstream = new RestClientProperties.Downstream();
+        downstream.getHedge().setEnabled(true);
+        downstream.getHedge().setMinDelay(Duration.ofMillis(50));
+        var meterRegistry = new SimpleMeterRegistry();
+        var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, downstream, meterRegistry);
+
+        // when
+        var start = System.nanoTime();
+        var reviews = reviewRestClient.retrieveReviews("1").collectList().block();
+
+        // then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+        assertThat(reviews).hasSize(1);
+        assertThat(reviewsBackend.requestCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("downstream.hedges").tag("name", "review").counter().count()).isEqualTo(1.0);
+    }
+}
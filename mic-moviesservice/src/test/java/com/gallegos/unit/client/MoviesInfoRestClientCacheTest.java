@@ -0,0 +1,96 @@
+package com.gallegos.unit.client;
+
+import com.gallegos.client.MoviesInfoRestClient;
+import com.gallegos.config.RestClientProperties;
+import com.gallegos.filter.RequestDeadline;
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoviesInfoRestClientCacheTest {
+
+    private static final String MOVIE_INFO_JSON = """
+            {"movieInfoId":"abc","name":"Batman Begins","year":2005,"cast":["Christian Bale"]}
+            """;
+
+    private StubBackend moviesInfoBackend;
+    private SimpleMeterRegistry meterRegistry;
+    private MoviesInfoRestClient moviesInfoRestClient;
+
+    @BeforeEach
+    void setup() {
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ofMillis(100), 200, MOVIE_INFO_JSON);
+        meterRegistry = new SimpleMeterRegistry();
+        moviesInfoRestClient = TestClients.moviesInfoRestClient(moviesInfoBackend, meterRegistry, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        moviesInfoBackend.close();
+    }
+
+    @Test
+    void retrieveMovieInfoById_concurrentAndRepeatedCallsShareOneLookup() {
+        // when
+        var movieInfos = Flux.range(0, 50)
+                .flatMap(i -> moviesInfoRestClient.retrieveMovieInfoById("abc"))
+                .collectList()
+                .block();
+        var cached = moviesInfoRestClient.retrieveMovieInfoById("abc").block();
+
+        // then
+        assertEquals(50, movieInfos.size());
+        assertEquals("Batman Begins", cached.getName());
+        assertEquals(1, moviesInfoBackend.requestCount());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "moviesInfo").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(50.0, meterRegistry.get("cache.gets").tag("cache", "moviesInfo").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void retrieveMovieInfosByIds_reusesCachedEntries() {
+        // given
+        moviesInfoRestClient.retrieveMovieInfoById("abc").block();
+
+        // when
+        var movieInfos = moviesInfoRestClient.retrieveMovieInfosByIds(List.of("abc"))
+                .collectList()
+                .block();
+
+        // then
+        assertEquals(1, movieInfos.size());
+        assertEquals(1, moviesInfoBackend.requestCount());
+    }
+
+    @Test
+    void retrieveMovieInfoById_sharedLookupDoesNotForwardFirstCallersDeadline() {
+        // given
+        var deadlineNanos = System.nanoTime() + Duration.ofMillis(500).toNanos();
+
+        // when
+        var movieInfos = Flux.merge(
+                        moviesInfoRestClient.retrieveMovieInfoById("abc")
+                                .contextWrite(context -> RequestDeadline.put(context, deadlineNanos)),
+                        moviesInfoRestClient.retrieveMovieInfoById("abc"))
+                .collectList()
+                .block();
+
+        // then
+        assertEquals(2, movieInfos.size());
+        assertEquals(1, moviesInfoBackend.requestCount());
+        // the shared lookup forwards its own budget, the downstream timeout, not the first caller's
+        var forwardedBudget = Long.parseLong(moviesInfoBackend.requestHeaders().getFirst().getFirst(RequestDeadline.HEADER));
+        assertThat(forwardedBudget).isBetween(1_000L, new RestClientProperties.Downstream().getTimeout().toMillis());
+    }
+}
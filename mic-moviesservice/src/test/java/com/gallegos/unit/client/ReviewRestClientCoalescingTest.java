@@ -0,0 +1,138 @@
+package com.gallegos.unit.client;
+
+import com.gallegos.client.ReviewRestClient;
+import com.gallegos.config.RestClientProperties;
+import com.gallegos.filter.RequestDeadline;
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Thundering-herd load test: many concurrent lookups of the same movie against a slow stub backend.
+ */
+@Slf4j
+class ReviewRestClientCoalescingTest {
+
+    private static final int CONCURRENT_REQUESTS = 500;
+
+    private static final String REVIEWS_JSON = """
+            [{"reviewId":"a","movieInfoId":1,"comment":"Awesome Movie","rating":9.0},
+             {"reviewId":"b","movieInfoId":1,"comment":"Awesome Movie1","rating":9.0}]
+            """;
+
+    private StubBackend reviewsBackend;
+    private SimpleMeterRegistry meterRegistry;
+    private ReviewRestClient reviewRestClient;
+
+    @BeforeEach
+    void setup() {
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ofMillis(200), 200, REVIEWS_JSON);
+        meterRegistry = new SimpleMeterRegistry();
+        reviewRestClient = TestClients.reviewRestClient(reviewsBackend, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewsBackend.close();
+    }
+
+    @Test
+    void retrieveReviews_thunderingHerdIsCoalesced() {
+        // when
+        var reviewCounts = Flux.range(0, CONCURRENT_REQUESTS)
+                .flatMap(i -> reviewRestClient.retrieveReviews("1").count(), CONCURRENT_REQUESTS)
+                .collectList()
+                .block();
+        log.info("{} requests served with {} upstream calls, ratio {}", CONCURRENT_REQUESTS,
+                reviewsBackend.requestCount(), reviewRestClient.coalescingRatio());
+
+        // then
+        assertEquals(CONCURRENT_REQUESTS, reviewCounts.size());
+        assertTrue(reviewCounts.stream().allMatch(count -> count == 2));
+        assertEquals(1, reviewsBackend.requestCount());
+        assertEquals(CONCURRENT_REQUESTS, meterRegistry.get("reviews.coalescing.requests").counter().count());
+        assertEquals(1.0, meterRegistry.get("reviews.coalescing.upstream").counter().count());
+        assertEquals(0.0, meterRegistry.get("reviews.coalescing.inflight").gauge().value());
+    }
+
+    @Test
+    void retrieveReviews_completedLookupsAreNotReused() {
+        // when
+        reviewRestClient.retrieveReviews("1").blockLast();
+        reviewRestClient.retrieveReviews("1").blockLast();
+
+        // then
+        assertEquals(2, reviewsBackend.requestCount());
+        assertEquals(1.0, reviewRestClient.coalescingRatio());
+    }
+
+    @Test
+    void retrieveReviews_endingLookupDoesNotDropTheNextOne() {
+        // given a lookup started while the previous one is still finishing
+        var second = new CompletableFuture<Long>();
+        reviewRestClient.retrieveReviews("1").count()
+                .doOnNext(count -> reviewRestClient.retrieveReviews("1").count().subscribe(second::complete))
+                .block();
+        await().atMost(Duration.ofSeconds(5)).until(() -> reviewsBackend.requestCount() == 2);
+
+        // when
+        var third = reviewRestClient.retrieveReviews("1").count().toFuture();
+
+        // then the third lookup joins the second instead of calling the backend again
+        assertEquals(2L, second.join());
+        assertEquals(2L, third.join());
+        assertEquals(2, reviewsBackend.requestCount());
+    }
+
+    @Test
+    void retrieveReviews_sharedCallDoesNotForwardFirstCallersDeadline() {
+        // given
+        var deadlineNanos = System.nanoTime() + Duration.ofMillis(200).toNanos();
+
+        // when
+        var reviewCounts = Flux.merge(
+                        reviewRestClient.retrieveReviews("1").count()
+                                .contextWrite(context -> RequestDeadline.put(context, deadlineNanos)),
+                        reviewRestClient.retrieveReviews("1").count())
+                .collectList()
+                .block();
+
+        // then
+        assertEquals(List.of(2L, 2L), reviewCounts);
+        assertEquals(1, reviewsBackend.requestCount());
+        // the shared call forwards its own budget, the downstream timeout, not the first caller's
+        var forwardedBudget = Long.parseLong(reviewsBackend.requestHeaders().getFirst().getFirst(RequestDeadline.HEADER));
+        assertThat(forwardedBudget).isBetween(1_000L, new RestClientProperties.Downstream().getTimeout().toMillis());
+    }
+
+    @Test
+    void retrieveReviews_firstCallerCancellingDoesNotEndSharedCall() {
+        // given
+        var inFlight = meterRegistry.get("reviews.coalescing.inflight").gauge();
+        var first = reviewRestClient.retrieveReviews("1").subscribe();
+        await().atMost(Duration.ofSeconds(5)).until(() -> reviewsBackend.requestCount() == 1);
+
+        // when
+        var second = reviewRestClient.retrieveReviews("1").count().toFuture();
+        first.dispose();
+
+        // then
+        assertEquals(2L, second.join());
+        assertEquals(1, reviewsBackend.requestCount());
+        await().atMost(Duration.ofSeconds(5)).until(() -> inFlight.value() == 0.0);
+    }
+}
@@ -0,0 +1,102 @@
+package com.gallegos.unit.client;
+
+import com.gallegos.config.RestClientProperties;
+import com.gallegos.domain.Review;
+import com.gallegos.exception.ReviewsClientException;
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReviewRestClientPagingTest {
+
+    private static final List<String> PAGES = List.of("""
+            [{"reviewId":"3","movieInfoId":1,"comment":"Awesome Movie","rating":9.0},
+             {"reviewId":"2","movieInfoId":1,"comment":"Good Movie","rating":7.0}]
+            """, """
+            [{"reviewId":"1","movieInfoId":1,"comment":"Bad Movie","rating":2.0}]
+            """);
+
+    @Test
+    void retrieveReviews_followsNextCursors() {
+        try (var reviewsBackend = StubBackend.jsonPages("/v1/reviews", PAGES)) {
+            // given
+            var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, new SimpleMeterRegistry());
+
+            // when
+            var reviews = reviewRestClient.retrieveReviews("1").collectList().block();
+            reviewRestClient.retrieveReviews("1").blockLast();
+
+            // then
+            assertEquals(List.of("3", "2", "1"), reviews.stream().map(Review::getReviewId).toList());
+            // lists spanning several pages are not revalidated
+            assertEquals(4, reviewsBackend.requestCount());
+            assertTrue(reviewsBackend.requestHeaders().get(2).getIfNoneMatch().isEmpty());
+        }
+    }
+
+    @Test
+    void streamReviews_followsNextCursors() {
+        try (var reviewsBackend = StubBackend.jsonPages("/v1/reviews", PAGES)) {
+            // given
+            var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, new SimpleMeterRegistry());
+
+            // when
+            var reviews = reviewRestClient.streamReviews("1").collectList().block();
+
+            // then
+            assertEquals(3, reviews.size());
+            assertEquals(2, reviewsBackend.requestCount());
+        }
+    }
+
+    @Test
+    void retrieveReviews_badRequestIsAClientError() {
+        try (var reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 400, "Invalid cursor")) {
+            // given
+            var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, new SimpleMeterRegistry());
+
+            // when & then
+            StepVerifier.create(reviewRestClient.retrieveReviews("1"))
+                    .expectErrorMatches(ex -> ex instanceof ReviewsClientException && ex.getMessage().equals("Invalid cursor"))
+                    .verify();
+            StepVerifier.create(reviewRestClient.streamReviews("1"))
+                    .expectError(ReviewsClientException.class)
+                    .verify();
+        }
+    }
+
+    @Test
+    void streamReviews_slowConsumersDoNotHoldTheDownstreamGuards() {
+        try (var reviewsBackend = StubBackend.jsonPages("/v1/reviews", PAGES)) {
+            // given: one call at a time, and any call over 200ms counts as slow
+            var downstream = new RestClientProperties.Downstream();
+            downstream.getBulkhead().setMaxConcurrentCalls(1);
+            downstream.getCircuitBreaker().setSlowCallDurationThreshold(Duration.ofMillis(200));
+            downstream.getCircuitBreaker().setSlowCallRateThreshold(50);
+            downstream.getCircuitBreaker().setSlidingWindowSize(2);
+            downstream.getCircuitBreaker().setMinimumNumberOfCalls(2);
+            var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, downstream, new SimpleMeterRegistry());
+
+            // when: two overlapping streams, each consumed over 1.5s
+            var streamed = Flux.merge(
+                            reviewRestClient.streamReviews("1").delayElements(Duration.ofMillis(500)).count(),
+                            reviewRestClient.streamReviews("1").delayElements(Duration.ofMillis(500)).count()
+                                    .delaySubscription(Duration.ofMillis(100)))
+                    .collectList()
+                    .block();
+
+            // then both streams were served, and ordinary lookups still go through
+            assertEquals(List.of(3L, 3L), streamed);
+            assertEquals(3, reviewRestClient.retrieveReviews("1").count().block());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.gallegos.unit.config;
+
+import com.gallegos.config.RestClientProperties;
+import com.gallegos.config.WebClientConfig;
+import com.gallegos.unit.support.StubBackend;
+import io.micrometer.core.instrument.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.internal.shaded.reactor.pool.PoolAcquirePendingLimitException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebClientConfigTest {
+
+    private StubBackend backend;
+
+    @BeforeEach
+    void setup() {
+        backend = StubBackend.json("/v1/movieinfos", Duration.ofMillis(300), 200, "[]");
+    }
+
+    @AfterEach
+    void tearDown() {
+        backend.close();
+    }
+
+    @Test
+    void buildWebClient_appliesPoolLimits() {
+        // given
+        var downstream = new RestClientProperties.Downstream();
+        downstream.setMaxConnections(1);
+        downstream.setPendingAcquireMaxCount(1);
+        var webClient = WebClientConfig.buildWebClient(WebClient.builder(), "poolLimits", downstream);
+
+        // when
+        var results = Flux.range(0, 3)
+                .flatMap(i -> webClient.get()
+                        .uri(backend.url("/v1/movieinfos"))
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .map(body -> (Object) body)
+                        .onErrorResume(ex -> Mono.just(NestedExceptionUtils.getMostSpecificCause(ex))))
+                .collectList()
+                .block();
+
+        // then one request is on the connection, one waits, the third is rejected
+        assertThat(results).hasSize(3);
+        assertThat(results).filteredOn(PoolAcquirePendingLimitException.class::isInstance).hasSize(1);
+        assertThat(results).filteredOn("[]"::equals).hasSize(2);
+    }
+
+    @Test
+    void buildWebClient_publishesPoolGauges() {
+        // given
+        var webClient = WebClientConfig.buildWebClient(WebClient.builder(), "poolGauges",
+                new RestClientProperties.Downstream());
+
+        // when
+        webClient.get()
+                .uri(backend.url("/v1/movieinfos"))
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+
+        // then
+        assertThat(Metrics.globalRegistry.find("reactor.netty.connection.provider.total.connections")
+                .tag("name", "poolGauges")
+                .gauge())
+                .isNotNull();
+    }
+}
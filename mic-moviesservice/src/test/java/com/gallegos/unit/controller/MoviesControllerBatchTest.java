@@ -0,0 +1,71 @@
+package com.gallegos.unit.controller;
+
+import com.gallegos.controller.MoviesController;
+import com.gallegos.controller.MoviesController.FanOutMode;
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoviesControllerBatchTest {
+
+    private static final String MOVIE_INFOS_JSON = """
+            [{"movieInfoId":"2","name":"The Dark Knight","year":2008,"cast":["Christian Bale"]},
+             {"movieInfoId":"1","name":"Batman Begins","year":2005,"cast":["Christian Bale"]}]
+            """;
+    private static final String REVIEWS_JSON = """
+            [{"reviewId":"a","movieInfoId":1,"comment":"Awesome Movie","rating":9.0},
+             {"reviewId":"b","movieInfoId":1,"comment":"Awesome Movie1","rating":9.0},
+             {"reviewId":"c","movieInfoId":2,"comment":"Excellent Movie","rating":8.0}]
+            """;
+
+    private StubBackend moviesInfoBackend;
+    private StubBackend reviewsBackend;
+    private MoviesController moviesController;
+
+    @BeforeEach
+    void setup() {
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos", Duration.ZERO, 200, MOVIE_INFOS_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 200, REVIEWS_JSON);
+
+        var moviesInfoRestClient = TestClients.moviesInfoRestClient(moviesInfoBackend, new SimpleMeterRegistry());
+        var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, new SimpleMeterRegistry());
+        moviesController = new MoviesController(moviesInfoRestClient, reviewRestClient,
+                TestClients.uncachedMovieCache(), new SimpleMeterRegistry(), FanOutMode.PARALLEL, 100, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        moviesInfoBackend.close();
+        reviewsBackend.close();
+    }
+
+    @Test
+    void retrieveMoviesByIds() {
+        // when
+        var movies = moviesController.retrieveMoviesByIds(List.of("1", "2", "3"));
+
+        // then
+        StepVerifier.create(movies)
+                .assertNext(movie -> {
+                    assertEquals("Batman Begins", movie.getMovieInfo().getName());
+                    assertEquals(2, movie.getReviewList().size());
+                })
+                .assertNext(movie -> {
+                    assertEquals("The Dark Knight", movie.getMovieInfo().getName());
+                    assertEquals(1, movie.getReviewList().size());
+                })
+                .verifyComplete();
+
+        assertEquals(1, moviesInfoBackend.requestCount());
+        assertEquals(1, reviewsBackend.requestCount());
+    }
+}
@@ -0,0 +1,113 @@
+package com.gallegos.unit.controller;
+
+import com.gallegos.controller.MoviesController;
+import com.gallegos.controller.MoviesController.FanOutMode;
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoviesControllerDegradationTest {
+
+    private static final Duration REVIEWS_BUDGET = Duration.ofMillis(200);
+
+    private static final String MOVIE_INFO_JSON = """
+            {"movieInfoId":"1","name":"Batman Begins","year":2005,"cast":["Christian Bale"]}
+            """;
+    private static final String MOVIE_INFOS_JSON = "[" + MOVIE_INFO_JSON + "]";
+    private static final String REVIEWS_JSON = """
+            [{"reviewId":"a","movieInfoId":1,"comment":"Awesome Movie","rating":9.0}]
+            """;
+
+    private StubBackend moviesInfoBackend;
+    private StubBackend reviewsBackend;
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        moviesInfoBackend.close();
+        reviewsBackend.close();
+    }
+
+    @Test
+    void retrieveMovieById_slowReviews() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ZERO, 200, MOVIE_INFO_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ofSeconds(1), 200, REVIEWS_JSON);
+
+        for (var mode : FanOutMode.values()) {
+            // when
+            var start = System.nanoTime();
+            var movie = controller(mode).retrieveMovieById("1").block();
+
+            // then
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(800));
+            assertThat(movie.getMovieInfo().getName()).isEqualTo("Batman Begins");
+            assertThat(movie.getReviewList()).isEmpty();
+            assertThat(movie.isReviewsPartial()).isTrue();
+        }
+        assertThat(meterRegistry.get("movies.degraded").tag("reason", "timeout").counter().count())
+                .isEqualTo(FanOutMode.values().length);
+    }
+
+    @Test
+    void retrieveMovieById_reviewsUnavailable() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ZERO, 200, MOVIE_INFO_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 500, "reviews down");
+
+        // when
+        var movie = controller(FanOutMode.PARALLEL).retrieveMovieById("1").block();
+
+        // then
+        assertThat(movie.getReviewList()).isEmpty();
+        assertThat(movie.isReviewsPartial()).isTrue();
+        assertThat(meterRegistry.get("movies.degraded").tag("reason", "unavailable").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void retrieveMovieById_reviewsWithinBudget() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ZERO, 200, MOVIE_INFO_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 200, REVIEWS_JSON);
+
+        // when
+        var movie = controller(FanOutMode.PARALLEL).retrieveMovieById("1").block();
+
+        // then
+        assertThat(movie.getReviewList()).hasSize(1);
+        assertThat(movie.isReviewsPartial()).isFalse();
+    }
+
+    @Test
+    void retrieveMoviesByIds_slowReviews() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos", Duration.ZERO, 200, MOVIE_INFOS_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ofSeconds(1), 200, REVIEWS_JSON);
+
+        // when
+        var movies = controller(FanOutMode.PARALLEL).retrieveMoviesByIds(List.of("1")).collectList().block();
+
+        // then
+        assertThat(movies).singleElement()
+                .satisfies(movie -> {
+                    assertThat(movie.getReviewList()).isEmpty();
+                    assertThat(movie.isReviewsPartial()).isTrue();
+                });
+    }
+
+    private MoviesController controller(FanOutMode mode) {
+        return new MoviesController(
+                TestClients.moviesInfoRestClient(moviesInfoBackend, new SimpleMeterRegistry()),
+                TestClients.reviewRestClient(reviewsBackend, new SimpleMeterRegistry()),
+                TestClients.uncachedMovieCache(),
+                meterRegistry, mode, 100, REVIEWS_BUDGET);
+    }
+}
@@ -0,0 +1,114 @@
+package com.gallegos.unit.controller;
+
+import com.gallegos.controller.MoviesController;
+import com.gallegos.controller.MoviesController.FanOutMode;
+import com.gallegos.exception.MoviesInfoClientException;
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Latency benchmark of the fan-out modes against local stub backends with a fixed delay each.
+ */
+@Slf4j
+class MoviesControllerFanOutTest {
+
+    private static final Duration BACKEND_DELAY = Duration.ofMillis(150);
+    private static final int ITERATIONS = 10;
+
+    private static final String MOVIE_INFO_JSON = """
+            {"movieInfoId":"abc","name":"Batman Begins","year":2005,"cast":["Christian Bale"],"release_date":"2005-06-15"}
+            """;
+    private static final String REVIEWS_JSON = """
+            [{"reviewId":"1","movieInfoId":1,"comment":"Awesome Movie","rating":9.0}]
+            """;
+
+    private StubBackend moviesInfoBackend;
+    private StubBackend reviewsBackend;
+
+    @AfterEach
+    void tearDown() {
+        moviesInfoBackend.close();
+        reviewsBackend.close();
+    }
+
+    @Test
+    void parallelModes_areFasterThanSequential() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", BACKEND_DELAY, 200, MOVIE_INFO_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", BACKEND_DELAY, 200, REVIEWS_JSON);
+
+        // when
+        var sequential = medianLatency(controller(FanOutMode.SEQUENTIAL));
+        var parallel = medianLatency(controller(FanOutMode.PARALLEL));
+        var speculative = medianLatency(controller(FanOutMode.SPECULATIVE));
+        log.info("Median latency sequential={}ms parallel={}ms speculative={}ms", sequential, parallel, speculative);
+
+        // then
+        assertThat(sequential).isGreaterThanOrEqualTo(2 * BACKEND_DELAY.toMillis());
+        assertThat(parallel).isLessThan(sequential * 3 / 4);
+        assertThat(speculative).isLessThan(sequential * 3 / 4);
+    }
+
+    @Test
+    void movieInfoNotFound_winsOverReviewsError() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", BACKEND_DELAY, 404, "");
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 500, "reviews down");
+
+        // when & then
+        for (var mode : FanOutMode.values()) {
+            assertThatThrownBy(() -> controller(mode).retrieveMovieById("abc").block())
+                    .isInstanceOf(MoviesInfoClientException.class)
+                    .satisfies(ex -> assertThat(((MoviesInfoClientException) ex).getStatusCode()).isEqualTo(404));
+        }
+    }
+
+    @Test
+    void speculative_cancelsReviewsOnMovieInfoFailure() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ZERO, 404, "");
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ofMillis(1000), 200, REVIEWS_JSON);
+
+        // when
+        var start = System.nanoTime();
+        assertThatThrownBy(() -> controller(FanOutMode.SPECULATIVE).retrieveMovieById("abc").block())
+                .isInstanceOf(MoviesInfoClientException.class);
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // then
+        assertThat(elapsed).isLessThan(Duration.ofMillis(1000));
+    }
+
+    private MoviesController controller(FanOutMode mode) {
+        var moviesInfoRestClient = TestClients.moviesInfoRestClient(moviesInfoBackend, new SimpleMeterRegistry());
+        var reviewRestClient = TestClients.reviewRestClient(reviewsBackend, new SimpleMeterRegistry());
+        return new MoviesController(moviesInfoRestClient, reviewRestClient,
+                TestClients.uncachedMovieCache(), new SimpleMeterRegistry(), mode, 100, Duration.ofSeconds(5));
+    }
+
+    private static long medianLatency(MoviesController controller) {
+        // warm up connections before measuring
+        controller.retrieveMovieById("abc").block();
+
+        var latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            var start = System.nanoTime();
+            var movie = controller.retrieveMovieById("abc").block();
+            latencies[i] = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            assertThat(movie).isNotNull();
+            assertThat(movie.getReviewList()).hasSize(1);
+        }
+        Arrays.sort(latencies);
+        return latencies[ITERATIONS / 2];
+    }
+}
@@ -0,0 +1,96 @@
+package com.gallegos.unit.controller;
+
+import com.gallegos.controller.MoviesController;
+import com.gallegos.controller.MoviesController.FanOutMode;
+import com.gallegos.globalerrorhandler.GlobalErrorHandler;
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoviesControllerStreamTest {
+
+    private static final int REVIEW_COUNT = 20_000;
+
+    private static final String MOVIE_INFO_JSON = """
+            {"movieInfoId":"1","name":"Batman Begins","year":2005,"cast":["Christian Bale"]}
+            """;
+
+    private StubBackend moviesInfoBackend;
+    private StubBackend reviewsBackend;
+
+    @AfterEach
+    void tearDown() {
+        moviesInfoBackend.close();
+        reviewsBackend.close();
+    }
+
+    @Test
+    void streamMovieById() {
+        // given
+        var reviewsJson = IntStream.range(0, REVIEW_COUNT)
+                .mapToObj(i -> "{\"reviewId\":\"" + i + "\",\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}")
+                .collect(Collectors.joining(",", "[", "]"));
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ZERO, 200, MOVIE_INFO_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 200, reviewsJson);
+
+        // when
+        var lines = webTestClient()
+                .get()
+                .uri("/v1/movies/{id}/stream", "1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(String.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        // then
+        assertThat(lines).hasSize(REVIEW_COUNT + 1);
+        assertThat(lines.getFirst()).contains("\"name\":\"Batman Begins\"");
+        assertThat(lines.get(1)).contains("\"reviewId\":\"0\"");
+        assertThat(lines.getLast()).contains("\"reviewId\":\"" + (REVIEW_COUNT - 1) + "\"");
+    }
+
+    @Test
+    void streamMovieById_notFound() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ZERO, 404, "");
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 200, "[]");
+
+        // when & then
+        webTestClient()
+                .get()
+                .uri("/v1/movies/{id}/stream", "1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+        assertThat(reviewsBackend.requestCount()).isZero();
+    }
+
+    private WebTestClient webTestClient() {
+        var controller = new MoviesController(
+                TestClients.moviesInfoRestClient(moviesInfoBackend, new SimpleMeterRegistry()),
+                TestClients.reviewRestClient(reviewsBackend, new SimpleMeterRegistry()),
+                TestClients.uncachedMovieCache(),
+                new SimpleMeterRegistry(),
+                FanOutMode.PARALLEL, 100, Duration.ofSeconds(5));
+        return WebTestClient.bindToController(controller)
+                .controllerAdvice(new GlobalErrorHandler())
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.gallegos.unit.filter;
+
+import com.gallegos.config.RestClientProperties;
+import com.gallegos.controller.MoviesController;
+import com.gallegos.controller.MoviesController.FanOutMode;
+import com.gallegos.filter.DeadlineWebFilter;
+import com.gallegos.filter.RequestDeadline;
+import com.gallegos.globalerrorhandler.GlobalErrorHandler;
+import com.gallegos.unit.support.StubBackend;
+import com.gallegos.unit.support.TestClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineWebFilterTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMillis(300);
+
+    private static final String MOVIE_INFO_JSON = """
+            {"movieInfoId":"1","name":"Batman Begins","year":2005,"cast":["Christian Bale"]}
+            """;
+
+    private StubBackend moviesInfoBackend;
+    private StubBackend reviewsBackend;
+
+    @AfterEach
+    void tearDown() {
+        if (moviesInfoBackend != null) {
+            moviesInfoBackend.close();
+            reviewsBackend.close();
+        }
+    }
+
+    @Test
+    void retrieveMovieById_sharedLookupsForwardTheirOwnBudget() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ZERO, 200, MOVIE_INFO_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 200, "[]");
+
+        // when
+        webTestClient()
+                .get()
+                .uri("/v1/movies/{id}", "1")
+                .header(RequestDeadline.HEADER, "200")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful();
+
+        // then cached and coalesced lookups are shared between callers, so instead of the caller's
+        // tighter budget they forward the downstream's own timeout
+        var downstreamTimeout = new RestClientProperties.Downstream().getTimeout().toMillis();
+        assertThat(forwardedBudget(moviesInfoBackend)).isBetween(201L, downstreamTimeout);
+        assertThat(forwardedBudget(reviewsBackend)).isBetween(201L, downstreamTimeout);
+    }
+
+    @Test
+    void retrieveMovieById_deadlineExceeded() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ofSeconds(2), 200, MOVIE_INFO_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 200, "[]");
+
+        // when
+        var start = System.nanoTime();
+        webTestClient()
+                .get()
+                .uri("/v1/movies/{id}", "1")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(504);
+
+        // then the caller stops waiting at its own deadline, whatever the shared lookup's budget
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void retrieveMovieById_expiredOnArrival() {
+        // given
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ZERO, 200, MOVIE_INFO_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", Duration.ZERO, 200, "[]");
+
+        // when
+        webTestClient()
+                .get()
+                .uri("/v1/movies/{id}", "1")
+                .header(RequestDeadline.HEADER, "0")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(504);
+
+        // then
+        assertThat(moviesInfoBackend.requestCount()).isZero();
+        assertThat(reviewsBackend.requestCount()).isZero();
+    }
+
+    @Test
+    void committedResponse_outlivesTheBudget() {
+        // given: a body whose first line is immediate and whose last one comes after the deadline
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movies/{id}/stream", "1"));
+        var bufferFactory = exchange.getResponse().bufferFactory();
+        WebFilterChain streamingChain = streamed -> streamed.getResponse().writeWith(Flux.concat(
+                        Mono.just("first\n"),
+                        Mono.just("last\n").delayElement(REQUEST_TIMEOUT.multipliedBy(2)))
+                .map(line -> bufferFactory.wrap(line.getBytes(StandardCharsets.UTF_8))));
+
+        // when
+        new DeadlineWebFilter(REQUEST_TIMEOUT).filter(exchange, streamingChain).block();
+
+        // then
+        assertThat(exchange.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("first\nlast\n");
+    }
+
+    @Test
+    void streamMovieById_reviewPagesDoNotCarryTheDeadline() {
+        // given: the reviews take longer than the whole request budget
+        moviesInfoBackend = StubBackend.json("/v1/movieinfos/{id}", Duration.ZERO, 200, MOVIE_INFO_JSON);
+        reviewsBackend = StubBackend.json("/v1/reviews", REQUEST_TIMEOUT.multipliedBy(2), 200, """
+                [{"reviewId":"1","movieInfoId":1,"comment":"Awesome Movie","rating":9.0}]
+                """);
+
+        // when
+        var lines = webTestClient()
+                .get()
+                .uri("/v1/movies/{id}/stream", "1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(String.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        // then only the first line is bound by the deadline
+        assertThat(lines).hasSize(2);
+        assertThat(reviewsBackend.requestHeaders().getFirst().containsHeader(RequestDeadline.HEADER)).isFalse();
+    }
+
+    private static long forwardedBudget(StubBackend backend) {
+        return Long.parseLong(backend.requestHeaders().getFirst().getFirst(RequestDeadline.HEADER));
+    }
+
+    private WebTestClient webTestClient() {
+        var controller = new MoviesController(
+                TestClients.moviesInfoRestClient(moviesInfoBackend, new SimpleMeterRegistry()),
+                TestClients.reviewRestClient(reviewsBackend, new SimpleMeterRegistry()),
+                TestClients.uncachedMovieCache(),
+                new SimpleMeterRegistry(),
+                FanOutMode.PARALLEL, 100, Duration.ofSeconds(5));
+        return WebTestClient.bindToController(controller)
+                .controllerAdvice(new GlobalErrorHandler())
+                .webFilter(new DeadlineWebFilter(REQUEST_TIMEOUT))
+                .configureClient()
+                .responseTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.gallegos.unit.support;
+
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Local Reactor Netty server standing in for mic-moviesinfo / mic-moviesreview in tests.
+ */
+public class StubBackend implements AutoCloseable {
+
+    private final DisposableServer server;
+    private final AtomicInteger requests;
+    private final Queue<HttpHeaders> requestHeaders;
+
+    private StubBackend(DisposableServer server, AtomicInteger requests, Queue<HttpHeaders> requestHeaders) {
+        this.server = server;
+        this.requests = requests;
+        this.requestHeaders = requestHeaders;
+    }
+
+    /**
+     * Answers every GET matching {@code path} with {@code status} and a JSON {@code body} after {@code delay}.
+     */
+    public static StubBackend json(String path, Duration delay, int status, String body) {
+        return json(path, requestNumber -> delay, status, body);
+    }
+
+    /**
+     * Like {@link #json(String, Duration, int, String)}, with a delay chosen per request (numbered from 1).
+     */
+    public static StubBackend json(String path, IntFunction<Duration> delay, int status, String body) {
+        var requests = new AtomicInteger();
+        var requestHeaders = new ConcurrentLinkedQueue<HttpHeaders>();
+        var server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get(path, (request, response) -> {
+                    var headers = new HttpHeaders();
+                    request.requestHeaders().forEach(header -> headers.add(header.getKey(), header.getValue()));
+                    requestHeaders.add(headers);
+                    var requestNumber = requests.incrementAndGet();
+                    return response.status(status)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .sendString(Mono.delay(delay.apply(requestNumber)).thenReturn(body));
+                }))
+                .bindNow();
+        return new StubBackend(server, requests, requestHeaders);
+    }
+
+    /**
+     * Answers every GET matching {@code path} with a JSON {@code body} tagged with {@code eTag}, or
+     * with a 304 and no body when the request's {@code If-None-Match} is that ETag.
+     */
+    public static StubBackend jsonWithETag(String path, String eTag, String body) {
+        var requests = new AtomicInteger();
+        var requestHeaders = new ConcurrentLinkedQueue<HttpHeaders>();
+        var server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get(path, (request, response) -> {
+                    var headers = new HttpHeaders();
+                    request.requestHeaders().forEach(header -> headers.add(header.getKey(), header.getValue()));
+                    requestHeaders.add(headers);
+                    requests.incrementAndGet();
+                    if (eTag.equals(headers.getFirst(HttpHeaders.IF_NONE_MATCH))) {
+                        return response.status(304).header(HttpHeaders.ETAG, eTag).send();
+                    }
+                    return response.status(200)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .header(HttpHeaders.ETAG, eTag)
+                            .sendString(Mono.just(body));
+                }))
+                .bindNow();
+        return new StubBackend(server, requests, requestHeaders);
+    }
+
+    /**
+     * Answers every GET matching {@code path} with one of the JSON {@code pages}: the first one, or
+     * the one whose index is given in the {@code after} query parameter. Every page but the last
+     * carries the index of the next one in the {@code X-Next-Cursor} header.
+     */
+    public static StubBackend jsonPages(String path, List<String> pages) {
+        var requests = new AtomicInteger();
+        var requestHeaders = new ConcurrentLinkedQueue<HttpHeaders>();
+        var server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get(path, (request, response) -> {
+                    var headers = new HttpHeaders();
+                    request.requestHeaders().forEach(header -> headers.add(header.getKey(), header.getValue()));
+                    requestHeaders.add(headers);
+                    requests.incrementAndGet();
+                    var after = new QueryStringDecoder(request.uri()).parameters().get("after");
+                    var page = after == null ? 0 : Integer.parseInt(after.getFirst());
+                    response.status(200)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+                    if (page + 1 < pages.size()) {
+                        response.header("X-Next-Cursor", Integer.toString(page + 1));
+                    }
+                    return response.sendString(Mono.just(pages.get(page)));
+                }))
+                .bindNow();
+        return new StubBackend(server, requests, requestHeaders);
+    }
+
+    public String url(String path) {
+        return "http://localhost:" + server.port() + path;
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Headers of every request received so far, in arrival order.
+     */
+    public List<HttpHeaders> requestHeaders() {
+        return List.copyOf(requestHeaders);
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
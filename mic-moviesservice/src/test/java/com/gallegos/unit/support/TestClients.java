@@ -0,0 +1,75 @@
+package com.gallegos.unit.support;
+
+import com.gallegos.cache.MovieCache;
+import com.gallegos.client.DownstreamResilience;
+import com.gallegos.client.MoviesInfoRestClient;
+import com.gallegos.client.ReviewRestClient;
+import com.gallegos.config.RestClientProperties;
+import com.gallegos.config.WebClientConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+/**
+ * Builds the downstream clients outside of a Spring context, pointed at {@link StubBackend}s.
+ */
+public final class TestClients {
+
+    private TestClients() {
+    }
+
+    /**
+     * Client whose MovieInfo cache never keeps a completed lookup, so every call reaches the backend.
+     */
+    public static MoviesInfoRestClient moviesInfoRestClient(StubBackend backend, MeterRegistry meterRegistry) {
+        return moviesInfoRestClient(backend, meterRegistry, Duration.ZERO);
+    }
+
+    public static MoviesInfoRestClient moviesInfoRestClient(StubBackend backend, MeterRegistry meterRegistry,
+                                                            Duration cacheTtl) {
+        return moviesInfoRestClient(backend, meterRegistry, cacheTtl, cacheTtl);
+    }
+
+    public static MoviesInfoRestClient moviesInfoRestClient(StubBackend backend, MeterRegistry meterRegistry,
+                                                            Duration cacheTtl, Duration cacheRevalidateAfter) {
+        var client = new MoviesInfoRestClient(webClient(),
+                resilience("moviesInfo", new RestClientProperties.Downstream(), meterRegistry), meterRegistry,
+                10_000, cacheTtl, cacheRevalidateAfter);
+        ReflectionTestUtils.setField(client, "moviesInfoUrl", backend.url("/v1/movieinfos"));
+        return client;
+    }
+
+    public static ReviewRestClient reviewRestClient(StubBackend backend, MeterRegistry meterRegistry) {
+        return reviewRestClient(backend, new RestClientProperties.Downstream(), meterRegistry);
+    }
+
+    public static ReviewRestClient reviewRestClient(StubBackend backend, RestClientProperties.Downstream downstream,
+                                                    MeterRegistry meterRegistry) {
+        var client = new ReviewRestClient(webClient(), resilience("review", downstream, meterRegistry), meterRegistry,
+                10_000, Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(client, "reviewsUrl", backend.url("/v1/reviews"));
+        return client;
+    }
+
+    /**
+     * Disabled movie cache, so every request is aggregated again.
+     */
+    public static MovieCache uncachedMovieCache() {
+        return new MovieCache(new SimpleMeterRegistry(), false, 10_000, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    public static DownstreamResilience resilience(String name, RestClientProperties.Downstream downstream,
+                                                  MeterRegistry meterRegistry) {
+        return new DownstreamResilience(name, downstream, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), meterRegistry);
+    }
+
+    private static WebClient webClient() {
+        return WebClientConfig.buildWebClient(new WebClientConfig().webClientBuilder(), "test", new RestClientProperties.Downstream());
+    }
+}